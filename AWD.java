@@ -24,37 +24,30 @@
 *
 * *********** PUBLIC METHODS ******************************************************
 *
-* static void main( String[] args )					--> Converts text or files to AWD or to English
+* static void main( String[] args )					--> Converts text or files to AWD or to English, asking the
+*																	 user what to do, or converts a batch of files without
+*																	 asking when given arguments (see AWDBatch), or runs as a
+*																	 server when started with -serve (see AWDServer)
 *
 * *********** PRIVATE METHODS *****************************************************
 *
 * static void convertUsingFile()						--> Convert an input text file to AWD or English and write
-*																	 the translation to a user specified output text file;
-*																	 used by main(..) method
-*
-* static boolean isNumber( String text )			--> Determines if the String is a number or not;
-*																	 used by convertUsingFile() method
-*
-* static String getRandomMaxIntLongSubstring( String input )
-*																--> Gets a substring that is up to MAX_INT_DIGITS long
-*																	 from the String. The substring's starting index is
-*																	 randomly chosen. If the String is shorter than
-*																	 MAX_INT_DIGITS, the whole String is returned; used in
-*																	 convertUsingFile() method
+*																	 the translation to a user specified output text file,
+*																	 one chunk at a time using AWDStream; used by main(..) method
 *
 * static String convertUsingCommand()				--> Convert a String input to AWD or English using the
 *																	 command prompt; used by main(..) method
 *
 * static String convert( String text )				--> Determines whether the text will be converted to English
 *																	 or to AWD and calls the corresponding method, either
-*																	 toEng(..) or toAWD(..); used by convertUsingFile() and
-*																	 convertUsingCommand()
+*																	 toEng(..) or toAWD(..); used by convertUsingCommand()
+*																	 and AWDBenchmark
 *
-* static String toEng( String text )				--> Converts text from the AWD language to English;
-*																	 used by convert(..) method
+* static String toEng( String text )				--> Converts text from the AWD language to English with
+*																	 AwdCodec; used by convert(..) method and AWDBenchmark
 *
-* static String toAWD( String text )				--> Converts text from English to the AWD language;
-*																	 used by convert(..) method
+* static String toAWD( String text )				--> Converts text from English to the AWD language with
+*																	 AwdCodec; used by convert(..) method and AWDBenchmark
 *
 *
 *
@@ -63,13 +56,7 @@
 */
 
 import java.util.Scanner;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Random;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileNotFoundException;
-import java.io.PrintStream;
 import java.io.IOException;
 
 /**
@@ -85,25 +72,59 @@ public class AWD{
 	public static final int ALPHABET_SIZE = 26; 	// Size of ENG alphabet
 	public static final int MAX_INT_DIGITS = 9; 	// Largest allowed digit length of an integer 
 																// (used for String parsing)
+	
+	/* Built-in tables, used unless a dictionary file is named by the awd.dictionary system property.
+		Segments of each ENG letter, A-Z, as they would be lit up on a seven segment digital display. Each
+		letter is a 7-bit mask where segment i, written in AWD as the number i + 1, is bit i
+	*/
+	static final int[] DEFAULT_LETTER_MASKS = {0b1110111, 0b1111111, 0b0111001, 0b1011110, 0b1111001, 0b1110001, 0b0111101,
+												  0b1110110, 0b0000110, 0b0011111, 0b1110100, 0b0111000, 0b1110101, 0b0110111,
+												  0b0111111, 0b1110011, 0b1100111, 0b0110011, 0b1101101, 0b0110001, 0b0111110,
+												  0b0110110, 0b1111110, 0b1100100, 0b1101110, 0b1011011};
+	
+	// ENG letter for each segment mask, indexed directly by the mask
+	static final char[] DEFAULT_MASK_LETTERS = {'C', 'F', 'R', 'E', 'H', 'G', 'I', 'Y', 'T', 'Z', 'F', 'J', 'I', 'B', 'Z', 'O', 'T', 'N', 'Q', 'D', 'A', 'I', 'R', 'R', 'H', 'K', 'L', 'Q', 'G', 'L', 'W', 'J', 'A', 'T', 'Q', 'Y', 'B', 'M', 'L', 'I', 'O', 'L', 'L', 'B', 'R', 'Y', 'O', 'R', 'F', 'T', 'V', 'R', 'K', 'C', 'V', 'N', 'L', 'C', 'S', 'F', 'N', 'G', 'U', 'O', 'G', 'W', 'K', 'W', 'S', 'D', 'Y', 'M', 'J', 'P', 'B', 'Z', 'D', 'L', 'P', 'L', 'E', 'C', 'P', 'M', 'H', 'K', 'N', 'R', 'E', 'P', 'X', 'Z', 'D', 'T', 'D', 'L', 'E', 'F', 'Q', 'R', 'X', 'G', 'C', 'Q', 'P', 'D', 'O', 'M', 'V', 'S', 'Y', 'U', 'V', 'F', 'M', 'P', 'K', 'M', 'H', 'A', 'J', 'E', 'A', 'Z', 'R', 'X', 'W', 'B'};
+	
+	// Numbers used to separate each AWD letter
+	static final char[] DEFAULT_END_NUMS = {'0', '8', '9'};
+	
+	// The tables in use: those of the AWDDictionary named by the awd.dictionary system property, if any
+	static final int[] LETTER_MASKS = AWDDictionary.getShared() != null ? AWDDictionary.getShared().getLetterMasks()
+																							  : DEFAULT_LETTER_MASKS;
+	static final char[] MASK_LETTERS = AWDDictionary.getShared() != null ? AWDDictionary.getShared().getMaskLetters()
+																							  : DEFAULT_MASK_LETTERS;
+	static final char[] END_NUMS = AWDDictionary.getShared() != null ? AWDDictionary.getShared().getEndNums()
+																						 : DEFAULT_END_NUMS;
+	
+	// Codec used by toEng(..) and toAWD(..), one per thread so that its buffers can be reused
+	private static final ThreadLocal<AwdCodec> CODEC = ThreadLocal.withInitial(AwdCodec::new);
+	
+	// Reads the user's answers. Shared, since a Scanner may read ahead of the answer it returns
+	private static final Scanner INPUT = new Scanner(System.in);
+	
 	public String text;
 	
 	/**
 	* Asks whether the user wants to use a file as input to convert from or
 	* whether the user wants to just use command line output. From here, the program goes
-	* on to establish which was the conversion is taking place.
+	* on to establish which was the conversion is taking place. If there are command line arguments,
+	* the files they name are converted by AWDBatch instead, without asking anything, or AWDServer is
+	* started if the first one is -serve.
 	*
-	*@param args Command line arguments (not used)
+	*@param args Command line arguments for AWDBatch or AWDServer, or none to ask the user
 	*/
 	public static void main(String[] args){
 	
+		if(args.length > 0)
+			System.exit(args[0].equals("-serve") ? AWDServer.run(args) : AWDBatch.run(args));
+	
 		String willContinue = "";
 	
 		do{
 	
 			System.out.println("Would you like to use a file?");
 			
-			Scanner scan = new Scanner(System.in);
-			String answer = scan.next();
+			String answer = INPUT.nextLine().trim();
 			answer = answer.toUpperCase(); // INPUT --> TO_UPPERCASE
 			
 			if(answer.equals("YES") || answer.equals("Y") || answer.equals("TRUE"))
@@ -114,7 +135,7 @@ public class AWD{
 				System.out.println("\nInvalid input. Try answering 'yes' or 'no' next time.");
 		
 			System.out.println("Would you like to convert something else?");
-			willContinue = scan.next();
+			willContinue = INPUT.nextLine();
 			willContinue = willContinue.trim();
 			willContinue = willContinue.toUpperCase();
 		
@@ -138,17 +159,14 @@ public class AWD{
 	
 	/**
 	* Determines whether to convert from the input file converting from
-	* AWD to ENG or from ENG to AWD. Calls the appropriate function that handles these
-	* conversions based on user input.
+	* AWD to ENG or from ENG to AWD. The file is converted a chunk at a time by
+	* AWDStream, so that the whole file never has to be held in memory.
 	*
-	*@@ADD Get file name from user and pass into functions
 	*/
 	private static void convertUsingFile(){
 		
-		Scanner inputReader = new Scanner(System.in);
-		
 		System.out.println("Enter the name of the file to be translated: ");
-		String fileName = inputReader.nextLine();
+		String fileName = INPUT.nextLine();
 		
 		if(!fileName.contains(".txt"))
 			fileName += ".txt";
@@ -156,90 +174,47 @@ public class AWD{
 		//@@DEBUG
 		//System.out.println("file name: " + fileName);
 		
-		FileReader fr = null;
-		Scanner scan = null;
-		
-		try{
-			fr = new FileReader(fileName);
-			scan = new Scanner(fr);
-		}catch(FileNotFoundException e){
+		File inputFile = new File(fileName);
+		if(!inputFile.isFile()){
 			System.out.println("File not found");
 			return;
 		}
 		
 		System.out.println("Would you like to use a NonLetterTranslator?");
-		String response = inputReader.nextLine();
+		String response = INPUT.nextLine();
 		response = response.trim();
 		response = response.toUpperCase();
-		NonLetterTranslator nlt = new NonLetterTranslator();
 		
 		boolean useNLTranslator = false;
 		if(response.equals("YES") || response.equals("Y") || response.equals("TRUE") || response.equals("T"))
 			useNLTranslator = true;
 		
-		String text = "";
-		
-		//get text from file
-		while(scan.hasNextLine()){
-		
-			String line = scan.nextLine();
-			
-			//@@DEBUG
-			//System.out.println("Line: " + line);
-			
-			// Get random substring of line to see if it's a number
-			if(line.length() != 0){
-				String section = getRandomMaxIntLongSubstring(line);
-			
-				// Still need to handle carriage returns
-				if(useNLTranslator && !isNumber(section))
-					line = nlt.translate(line) + nlt.translate(System.getProperty("line.separator"));
-			}else{
-				// When there is a hard 
-				line = nlt.translate(System.getProperty("line.separator"));
-			}
-				
-			text += line;
-		}
-		
-		String result = convert(text);
-		
-		// Get random substring of line to see if it's a number
-		String piece = getRandomMaxIntLongSubstring(result);
-		
-		if(useNLTranslator && !isNumber(piece))
-			result = nlt.translate(result);
-
-		//@@DEBUG
-		//System.out.println("result: " + result);
-		
 		// Ask to see if user wants to see translation
 		System.out.println("Would you like to see what the input file converted to?");
-		String answer = inputReader.next();
+		String answer = INPUT.nextLine();
 		answer = answer.trim();
 		answer = answer.toUpperCase();
 		
-		if(answer.equals("YES") || answer.equals("Y") || answer.equals("TRUE"))
-			System.out.println("Translation: " + result + "\n");
+		boolean showTranslation = answer.equals("YES") || answer.equals("Y") || answer.equals("TRUE");
 		
 		// Get output file name, only .txt files accepted
 		System.out.println("What would you like to call your output file?");
-		answer = inputReader.next();
+		answer = INPUT.nextLine();
 		answer = answer.trim();
 		
 		if(!answer.contains(".txt"))
 			answer += ".txt";
 		
-		// Only .txt files accepted
-		if(!answer.contains(".txt"))
-			System.out.println("Please only use a .txt file");
-		
 		try
 		{
 			File file = new File(answer);
-			PrintStream print = new PrintStream(file);
+			AWDStream.convert(inputFile, file, useNLTranslator);
 			
-			print.println(result);
+			if(showTranslation){
+				System.out.print("Translation: ");
+				AWDStream.print(file, System.out);
+				System.out.println();
+			}
 		}
       catch(IOException e)
 		{
@@ -247,56 +222,6 @@ public class AWD{
 		}
 	}
 	
-	/**
-	* Determines if the String is a number or not
-	*
-	*@param text String checked to see if it is a number
-	*@return boolean True if it's a number, false otherwise
-	*/
-	private static boolean isNumber(String text){
-	
-   	try{
-	 		Integer.parseInt(text);
-      }catch(NumberFormatException ex){
-      	return false;
-      }
-		
-      return true;
-	}
-	
-	/**
-	* Gets a random substring from the input defined to be MAX_INT_DIGITS long, which is the 
-	* largest allowed number of digits that an int can be in order to guarentee that there won't
-	* be an error
-	*
-	*@param input The String to get a substring from
-	*@return String A random substring taken from the input, which is MAX_INT_DIGITS long
-	*/
-	private static String getRandomMaxIntLongSubstring(String input){
-		Random rand = new Random();
-		
-		//@@DEBUG
-		//System.out.println("Input: " + input);
-		
-		int startIndex = 0;
-		int endIndex = input.length() - 1;
-		if(input.length() > MAX_INT_DIGITS){
-			int buffer = input.length() - MAX_INT_DIGITS;
-			
-			//@@DEBUG
-			//System.out.println("Buffer: " + buffer);
-			
-			startIndex = rand.nextInt(buffer);
-			endIndex = startIndex + MAX_INT_DIGITS;
-		}
-		
-		//@@DEBUG
-		//System.out.println("MAX_INT_DIGITS: " + MAX_INT_DIGITS);
-		//System.out.println("Start Index: " + startIndex + ", End Index: " + endIndex);
-		
-		return input.substring(startIndex, endIndex);
-	}
-	
 	/**
 	* Gets the text to translate from the user, determines whether the inputted text
 	* is AWD or ENG and then converts the text to either AWD or ENG using the helper
@@ -307,8 +232,7 @@ public class AWD{
 
 		System.out.println("Enter text to translate: ");
 		
-		Scanner scan = new Scanner(System.in);
-		String text = scan.nextLine();
+		String text = INPUT.nextLine();
 		
 		return convert(text);
 	}
@@ -319,7 +243,7 @@ public class AWD{
 	* converted text. Used if converting in command or in a file.
 	*
 	*/
-	private static String convert(String text){
+	static String convert(String text){
 	
 		String result = "";
 	
@@ -335,9 +259,9 @@ public class AWD{
 		}
 		
 		if(text.length() > 1){		//requires at least two characters to make any word
-			if(text.charAt(0) <= MAX_AWD_VAL) //@@EDGE_CASE May have to make sure user inputs a number
+			if(AWDClassifier.isAwd(text))	//every character is a digit
 				result = toEng(text);
-			else										 //@@EDGE_CASE Similarly, may have to make sure user inputs a letter
+			else
 				result = toAWD(text);
 		}
 		
@@ -351,7 +275,7 @@ public class AWD{
 	*@param text The AWD text to be translated
 	*@return String The translated text, ENG
 	*/
-	private static String toEng(String text){
+	static String toEng(String text){
 	
 		// Test input: 156074853057349 = 'TEST'
 		// Test input: 7415682479315683164250 = 'ERIC'
@@ -362,70 +286,17 @@ public class AWD{
 							= 'Lorem ipsum dolor sit amet consectetur adipisicing elit sed do eiusmod tempor incididunt ut labore et dolore magna aliqua Ut enim ad minim veniam quis nostrud exercitation ullamco laboris nisi ut aliquip ex ea commodo consequat Duis aute irure dolor in reprehenderit in voluptate velit esse cillum dolore eu fugiat nulla pariatur Excepteur sint occaecat cupidatat non proident sunt in culpa qui officia deserunt mollit anim id est laborum'
 		*/
 	
-		String result = "";
-		
-		//Stores the digital clocklike segments of the letters
-		boolean[] clockBits = {false, false, false, false, false, false, false};
-		
-		/* Stores the values associated to each digital bit segment, used to distinguish the letters based on
-			an accumulative count of each of its digital bit segment values
-		*/ 
-		int[] digitalSegmentValues = {1, 2, 4, 8, 16, 32, 64};
-		
-		int digitalSegmentTotal = 0; //used to create the key for each 
-		
-		int index = 0; //start at the second number in the sequence
-		int length = text.length();
-
-		String[] table = {"C", "F", "R", "E", "H", "G", "I", "Y", "T", "Z", "F", "J", "I", "B", "Z", "O", "T", "N", "Q", "D", "A", "I", "R", "R", "H", "K", "L", "Q", "G", "L", "W", "J", "A", "T", "Q", "Y", "B", "M", "L", "I", "O", "L", "L", "B", "R", "Y", "O", "R", "F", "T", "V", "R", "K", "C", "V", "N", "L", "C", "S", "F", "N", "G", "U", "O", "G", "W", "K", "W", "S", "D", "Y", "M", "J", "P", "B", "Z", "D", "L", "P", "L", "E", "C", "P", "M", "H", "K", "N", "R", "E", "P", "X", "Z", "D", "T", "D", "L", "E", "F", "Q", "R", "X", "G", "C", "Q", "P", "D", "O", "M", "V", "S", "Y", "U", "V", "F", "M", "P", "K", "M", "H", "A", "J", "E", "A", "Z", "R", "X", "W", "B"};
-		
-		while(index < length){
+		StringBuilder builder = new StringBuilder(text.length() / 3);
+		AwdCodec codec = CODEC.get();
+		codec.reset();
 		
-			//end of number sequence when a number is one less than the one before it
-			do{
-				try{
-					int num = Character.getNumericValue(text.charAt(index)); //uses num as index of clockBits array
-					
-					//reverse whatever the bit was at that index
-					if(clockBits[num - 1])
-						clockBits[num - 1] = false;
-				   else
-						clockBits[num - 1] = true;
-					
-				}catch(java.lang.ArrayIndexOutOfBoundsException e){
-					System.out.println("Invalid character read. Terminating script.");
-					return result;
-				}
-				
-				++index;
-			}while(text.charAt(index) != '0' && text.charAt(index) != '8' && text.charAt(index) != '9');
-			
-			++index;
-			
-			//get id of letter
-			for(int i = 0; i < clockBits.length; i++)
-				if(clockBits[i])
-					digitalSegmentTotal += digitalSegmentValues[i];
-			
-			//@@DEBUG
-			//System.out.println("DST: " + digitalSegmentTotal);
-			
-			if(index >= 3){	//make sure that a letter has been processed
-				result += table[digitalSegmentTotal];
-			
-				//@@DBG
-				//System.out.println("Result: " + result);
-			
-				while(index < length && text.charAt(index - 1) == text.charAt(index)){	//if there is a repeated letter
-					result += Character.toString(result.charAt(result.length() - 1)); //add letter again
-					++index;
-				}
-			}
-			
-			digitalSegmentTotal = 0; //reset letter digital bit segment count
+		try{
+			codec.decode(text, builder); //stops at the first invalid character
+		}catch(IOException e){
+			//StringBuilder does not throw IOException
 		}
 		
-		return result;
+		return builder.toString();
 	}
 	
 	/**
@@ -437,7 +308,7 @@ public class AWD{
 	*@param text The English sentence to translate to AWD
 	*@return String The AWD converted text, consisting of the numbers 0-9, inclusive
 	*/
-	private static String toAWD(String text){
+	static String toAWD(String text){
 		
 		// Test: HEY --> 23567 1234 1235
 		// Test: BALLOON --> 3715642 4 17423 0/9/8 312 0/9/8 4
@@ -445,112 +316,21 @@ public class AWD{
 		//			142 347 34 17 471 372 7234 51724 527461 16 2417 23 4235 527 14 41723 427
 		//			2 7312 2413 71 24713 463 6315 56 671 2
 		
-		String result = "";
-		
-		text = text.trim();
-		int length = text.length();
-		int index = 0;
-		
-		String[] endNums = {"0", "8", "9"};
-		
-		boolean[] clockBits = {false, false, false, false, false, false, false};
-		
-		boolean[][] alphaBits = {{true, true, true, false, true, true, true}, {true, true, true, true, true, true, true},
-										 {true, false, false, true, true, true, false}, {false, true, true, true, true, false, true},
-										 {true, false, false, true, true, true, true}, {true, false, false, false, true, true, true},
-										 {true, false, true, true, true, true, false}, {false, true, true, false, true, true, true},
-										 {false, true, true, false, false, false, false}, {true, true, true, true, true, false, false},
-										 {false, false, true, false, true, true, true}, {false, false, false, true, true, true, false},
-										 {true, false, true, false, true, true, true}, {true, true, true, false, true, true, false},
-										 {true, true, true, true, true, true, false}, {true, true, false, false, true, true, true},
-										 {true, true, true, false, false, true, true}, {true, true, false, false, true, true, false},
-										 {true, false, true, true, false, true, true}, {true, false, false, false, true, true, false},
-										 {false, true, true, true, true, true, false}, {false, true, true, false, true, true, false},
-										 {false, true, true, true, true, true, true}, {false, false, true, false, false, true, true},
-										 {false, true, true, true, false, true, true}, {true, true, false, true, true, false, true}};
-		
-		ArrayList<Integer> outputOptions = new ArrayList<Integer>();
-		Random rand = new Random();
+		StringBuilder builder = new StringBuilder(text.length() * 5);
+		AwdCodec codec = CODEC.get();
+		codec.reset();
 		
-		while(index < length){
-
-			boolean[] current = new boolean[clockBits.length];
-			
-			for(int i = 0; i < clockBits.length; i++){
-				int indexBlah = Character.getNumericValue(text.charAt(index)) - 10;
-				
-				//@@DEBUG -- KEEP THIS
-				String charValue = Character.toString(text.charAt(index));
-				//String charValue2 = "";
-				//if(index + 1 != text.length())
-				//	charValue2 = Character.toString(text.charAt(index + 1));
-				
-				try{
-					current[i] = alphaBits[Character.getNumericValue(text.charAt(index)) - 10][i];
-				}catch(ArrayIndexOutOfBoundsException e){
+		try{
+			if(!codec.encode(text.trim(), builder)){
+				System.out.print("You may want to consider adding this character");
+				System.out.println(" to the list of recognized characters");
 				
-					//@@DEBUG -- KEEP THIS
-					System.out.println("Unrecognized character: " + charValue);
-					Character whatIsThis = charValue.charAt(0);
-					String name = Character.getName(whatIsThis.charValue());
-					System.out.println("Unrecognized character name: " + name);
-					System.out.print("You may want to consider adding this character");
-					System.out.println(" to the list of recognized characters");
-					
-					//Character whatIsThis2 = charValue2.charAt(0);
-					//String name2 = Character.getName(whatIsThis2.charValue());
-					//System.out.println("Unrecognized character name2: " + name2);
-					
-					return "Unrecognized character found.";
-				}
-			}
-			
-			// If the next letter is the same as the previous one, add the same number followed by a decremented one
-			if(Arrays.equals(current, clockBits))
-			{
-				result += Character.toString(result.charAt(result.length() - 1));
-				++index;
-				continue;
-			}
-			
-			for(int i = 0; i < clockBits.length; i++){
-				clockBits[i] = (clockBits[i] || current[i]) && !(clockBits[i] && current[i]);
-				if(clockBits[i])
-					outputOptions.add(i + 1);
+				return "Unrecognized character found.";
 			}
-			
-			clockBits = current;
-
-			ArrayList<Integer> temp = (ArrayList<Integer>)outputOptions.clone();
-			String tempResult = "";
-			
-			do{
-				int numIndex = rand.nextInt(temp.size());
-				int num = temp.get(numIndex);
-				int lastResultNum;
-				
-				// Find last number, dependent on whether result is currently "", whether tempResult is
-				// currently "", or if tempResult has a last value
-				if(!tempResult.isEmpty())
-					lastResultNum = Character.getNumericValue(tempResult.charAt(tempResult.length() - 1));
-				else if(!result.isEmpty())
-					lastResultNum = Character.getNumericValue(result.charAt(result.length() - 1));
-				else
-					lastResultNum = 10; //an unachievable number, as to get past the if statement no matter what
-					
-				tempResult += num;
-				temp.remove(numIndex);
-				
-			}while(!temp.isEmpty());
-			
-			result += tempResult;
-			result += endNums[rand.nextInt(3)];
-			
-			++index;
-			outputOptions.clear();
-			
+		}catch(IOException e){
+			//StringBuilder does not throw IOException
 		}
 		
-		return result;
+		return builder.toString();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,261 @@
+/**
+* AWDBatch.java (AWD 1.0) by Peter Olson
+*
+* Converts many files without asking any questions, for use from scripts. Runs when AWD is started with
+* command line arguments:
+*
+*		java AWD -in <file|directory|glob> -out <directory> [-to awd|eng] [-cipher awd|island] [-nlt]
+*					[-threads n]
+*
+*		-in				--> A file, every file in a directory, or every file matching a glob such as
+*								 "letters/*.txt" or "letters/**.txt"
+*		-out				--> The directory the translations are written to, under the same names (and
+*								 relative paths, for globs) as the input files. Created if needed
+*		-to				--> The direction to convert in: awd to encode with the cipher, eng to decode.
+*								 Without it, the start of each file decides (Island files are only decoded
+*								 when asked to, since they look like English)
+*		-cipher			--> The cipher to convert to and from, AWD by default
+*		-nlt				--> Use the NonLetterTranslator
+*		-threads			--> Number of files converted at once, the number of cores by default
+*
+* The files are converted on a fixed pool of worker threads, each of which reuses one codec for all
+* of its files. One line is printed per file, and the exit status is 0 only if every file was converted.
+*
+* *********** PUBLIC GLOBAL VARIABLES *********************************************
+*
+* static final String USAGE							--> How to run a batch
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* static int run( String[] args )						--> Converts the files named by the arguments and returns the
+*																	 exit status
+*
+* *********** PRIVATE METHODS *****************************************************
+*
+* static List<Path> findInputs( String input, Path[] base )
+*																--> Finds the files named by a file, directory or glob;
+*																	 used by run(..) method
+*
+* static boolean isGlob( String segment )			--> Determines whether part of a path has glob characters;
+*																	 used by findInputs(..) method
+*
+* static boolean convertFile( Path input, Path output, boolean useNLTranslator, int direction, boolean island )
+*																--> Converts one file with the worker's codec and prints
+*																	 the result; used by run(..) method
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class AWDBatch{
+
+	public static final String USAGE = "Usage: java AWD -in <file|directory|glob> -out <directory> [-to awd|eng] "
+												  + "[-cipher awd|island] [-nlt] [-threads n]";
+
+	// Codecs reused by each worker thread for all of its files
+	private static final ThreadLocal<AwdCodec> CODECS = ThreadLocal.withInitial(AwdCodec::new);
+	private static final ThreadLocal<IslandCodec> ISLAND_CODECS = ThreadLocal.withInitial(IslandCodec::new);
+
+	/**
+	* Converts the files named by the arguments, several at a time
+	*
+	*@param args The command line arguments, see USAGE
+	*@return int 0 if every file was converted, 1 if a file could not be converted, 2 if the arguments are wrong
+	*/
+	public static int run(String[] args){
+		String input = null;
+		String outputDirectory = null;
+		int direction = AWDStream.DETECT;
+		boolean useNLTranslator = false;
+		boolean island = false;
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		try{
+			for(int i = 0; i < args.length; i++){
+				if(args[i].equals("-in"))
+					input = args[++i];
+				else if(args[i].equals("-out"))
+					outputDirectory = args[++i];
+				else if(args[i].equals("-to")){
+					String to = args[++i];
+					if(to.equalsIgnoreCase("awd"))
+						direction = AWDStream.TO_AWD;
+					else if(to.equalsIgnoreCase("eng"))
+						direction = AWDStream.TO_ENG;
+					else
+						throw new IllegalArgumentException(to);
+				}else if(args[i].equals("-cipher")){
+					String cipher = args[++i];
+					if(cipher.equalsIgnoreCase("island"))
+						island = true;
+					else if(!cipher.equalsIgnoreCase("awd"))
+						throw new IllegalArgumentException(cipher);
+				}else if(args[i].equals("-nlt"))
+					useNLTranslator = true;
+				else if(args[i].equals("-threads"))
+					threads = Integer.parseInt(args[++i]);
+				else
+					throw new IllegalArgumentException(args[i]);
+			}
+		}catch(RuntimeException e){
+			input = null;
+		}
+
+		if(input == null || outputDirectory == null || threads < 1){
+			System.out.println(USAGE);
+			return 2;
+		}
+
+		Path[] base = new Path[1];
+		List<Path> inputs;
+		try{
+			inputs = findInputs(input, base);
+			Files.createDirectories(Paths.get(outputDirectory));
+		}catch(IOException e){
+			System.out.println(e);
+			return 1;
+		}
+
+		if(inputs.isEmpty()){
+			System.out.println("No files found: " + input);
+			return 1;
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, inputs.size()));
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>(inputs.size());
+
+		final int toDirection = direction;
+		final boolean nlt = useNLTranslator;
+		final boolean toIsland = island;
+		for(Path file : inputs){
+			Path output = Paths.get(outputDirectory).resolve(base[0].relativize(file).toString());
+			results.add(pool.submit(() -> convertFile(file, output, nlt, toDirection, toIsland)));
+		}
+		pool.shutdown();
+
+		int converted = 0;
+		for(Future<Boolean> result : results){
+			try{
+				if(result.get())
+					++converted;
+			}catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+				pool.shutdownNow();
+				break;
+			}catch(ExecutionException e){
+				System.out.println(e.getCause());
+			}
+		}
+
+		System.out.println(converted + " of " + inputs.size() + " files converted");
+		return converted == inputs.size() ? 0 : 1;
+	}
+
+	/**
+	* Finds the files named by a file, a directory (every file directly inside it) or a glob. Only the
+	* path segments from the first one with glob characters are matched, so "letters/2019/*.txt" only
+	* walks the letters/2019 directory
+	*
+	*@param input The file, directory or glob
+	*@param base Set to the directory the files are relative to, which is kept in the output names
+	*@return List<Path> The files found, in order
+	*@throws IOException If a directory cannot be read
+	*/
+	private static List<Path> findInputs(String input, Path[] base) throws IOException{
+		Path path = Paths.get(input.replace('/', File.separatorChar));
+
+		if(Files.isRegularFile(path)){
+			base[0] = path.toAbsolutePath().getParent();
+			List<Path> single = new ArrayList<Path>();
+			single.add(path.toAbsolutePath());
+			return single;
+		}
+
+		String glob = "*";
+		if(!Files.isDirectory(path)){
+			String[] segments = input.split("/");
+			int first = 0;
+			while(first < segments.length && !isGlob(segments[first]))
+				++first;
+
+			path = Paths.get(first == 0 ? "." : String.join(File.separator, Arrays.copyOf(segments, first)));
+			glob = String.join("/", Arrays.copyOfRange(segments, first, segments.length));
+		}
+
+		base[0] = path.toAbsolutePath();
+		PathMatcher matcher = path.getFileSystem().getPathMatcher("glob:" + glob);
+		int depth = glob.contains("**") ? Integer.MAX_VALUE : glob.split("/").length;
+
+		try(Stream<Path> files = Files.walk(base[0], depth)){
+			return files.filter(Files::isRegularFile)
+							.filter(file -> matcher.matches(base[0].relativize(file)))
+							.sorted()
+							.collect(Collectors.toList());
+		}
+	}
+
+	/**
+	* Determines whether part of a path has glob characters in it
+	*
+	*@param segment The part of the path between two separators
+	*@return boolean True if the segment is a glob, false otherwise
+	*/
+	private static boolean isGlob(String segment){
+		for(int i = 0; i < segment.length(); i++){
+			char ch = segment.charAt(i);
+			if(ch == '*' || ch == '?' || ch == '[' || ch == '{')
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	* Converts one file with the worker thread's codec for the cipher and prints whether it was converted
+	*
+	*@param input The file to convert
+	*@param output Where the translation is written
+	*@param useNLTranslator True if the NonLetterTranslator should be used, false otherwise
+	*@param direction AWDStream.TO_AWD, AWDStream.TO_ENG or AWDStream.DETECT
+	*@param island True to convert with Island, false to convert with AWD
+	*@return boolean True if the file was converted, false otherwise
+	*/
+	private static boolean convertFile(Path input, Path output, boolean useNLTranslator, int direction,
+												  boolean island){
+		try{
+			if(Files.exists(output) && Files.isSameFile(input, output)){
+				System.out.println("FAILED " + input + ": output would overwrite the input");
+				return false;
+			}
+
+			if(output.getParent() != null)
+				Files.createDirectories(output.getParent());
+
+			Codec codec = island ? ISLAND_CODECS.get() : CODECS.get();
+			boolean converted = AWDStream.convert(input.toFile(), output.toFile(), useNLTranslator, false, direction,
+																codec);
+			System.out.println((converted ? "OK " : "FAILED ") + input + " -> " + output);
+			return converted;
+		}catch(IOException e){
+			System.out.println("FAILED " + input + ": " + e);
+			return false;
+		}
+	}
+}
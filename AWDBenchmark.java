@@ -0,0 +1,592 @@
+/**
+* AWDBenchmark.java (AWD 1.0) by Peter Olson
+*
+* Measures every conversion path so that a slower build can be caught before it is rolled out. Each
+* benchmark is warmed up first, then run for a fixed time while the latency of every call and the bytes
+* allocated by the benchmark thread are recorded. The results are printed one line per benchmark:
+*
+*		throughput		--> Characters (or lookups) handled per second
+*		p50 .. max		--> Latency percentiles of a single call, in microseconds
+*		alloc MB/s		--> Allocation rate of the benchmark thread
+*		alloc B/op		--> Bytes allocated per call
+*
+* Codec benchmarks are run on three corpora, each at several sizes:
+*
+*		lorem				--> Lorem ipsum prose
+*		source			--> The .java files in the working directory (a short sample if there are none)
+*		punctuation		--> Dialogue full of punctuation marks and numbers
+*
+* HashTable is measured on the segment id to letter index, next to IntCharTable doing the same job. Shared
+* tables are measured under contention: reader threads look letters up while one writer thread keeps
+* deleting and inserting them, once with a HashTable behind a single lock and once with ConcurrentHashTable.
+*
+* Every corpus is first translated to alpha text with the NonLetterTranslator, the same way AWDStream does
+* it, so that AWD.toAWD(..) and AWD.convert(..) can handle it.
+*
+* Usage: java AWDBenchmark [-warmup millis] [-time millis] [-sizes size,size,...] [-only name] [-threads n]
+*
+* Run with -Dawd.seed=n to make every random choice from a seed (see AWDRandom), so that a run converts
+* the same text to the same output as the run before it. Run with -Dawd.metrics=true to print what
+* AWDMetrics counted over the whole run at the end; the counting slows the codec down a little.
+*
+* *********** PUBLIC GLOBAL VARIABLES *********************************************
+*
+* static final int[] DEFAULT_SIZES					--> Corpus sizes used when -sizes isn't given, in characters
+*
+* static final long DEFAULT_WARMUP_MILLIS = 1000	--> Time each benchmark is warmed up for
+*
+* static final long DEFAULT_MEASURE_MILLIS = 2000	--> Time each benchmark is measured for
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* static void main( String[] args )					--> Runs every benchmark and prints the results
+*
+* *********** PRIVATE METHODS *****************************************************
+*
+* static void runCodecBenchmarks( String corpus, int size )
+*																--> Runs the AWD, Island, NonLetterTranslator and AWDStream
+*																	 benchmarks on one corpus, reading the files both
+*																	 through a FileChannel and through a memory mapping,
+*																	 and the same conversion as a Pipeline;
+*																	 used by main(..) method
+*
+* static void runHashTableBenchmarks()				--> Runs the HashTable and IntCharTable benchmarks; used by
+*																	 main(..) method
+*
+* static void runContentionBenchmarks()			--> Runs the shared table benchmarks; used by main(..) method
+*
+* static void measureContention( String name, ENGBit[] bits, IntFunction<String> lookup, IntConsumer write )
+*																--> Measures lookups by many threads while one thread writes,
+*																	 and prints the results; used by runContentionBenchmarks()
+*
+* static void measure( String name, String corpus, int size, long units, String unit, Operation operation )
+*																--> Warms up and measures one benchmark and prints the
+*																	 results; used by the run..Benchmarks() methods
+*
+* static String makeCorpus( String corpus, int size )
+*																--> Repeats the corpus text until it is the given size;
+*																	 used by main(..) method
+*
+* static String readSources()							--> Reads the .java files in the working directory;
+*																	 used by makeCorpus(..) method
+*
+* static File writeTempFile( String text )			--> Writes the text to a file that is deleted on exit;
+*																	 used by runCodecBenchmarks(..) method
+*
+* static long getAllocatedBytes()					--> Gets the number of bytes allocated by this thread;
+*																	 used by measure(..) method
+*
+* static void consume( Object result )				--> Keeps the result of a benchmark from being optimized
+*																	 away; used by measure(..) method
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+public class AWDBenchmark{
+
+	public static final int[] DEFAULT_SIZES = {1024, 64 * 1024, 1024 * 1024};	// Corpus sizes in characters
+	public static final long DEFAULT_WARMUP_MILLIS = 1000;	// Time each benchmark is warmed up for
+	public static final long DEFAULT_MEASURE_MILLIS = 2000;	// Time each benchmark is measured for
+
+	private static final String[] CORPORA = {"lorem", "source", "punctuation"};
+
+	private static final String LOREM = "Lorem ipsum dolor sit amet, consectetur adipisicing elit, sed do eiusmod "
+													+ "tempor incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, "
+													+ "quis nostrud exercitation ullamco laboris nisi ut aliquip ex ea commodo "
+													+ "consequat. Duis aute irure dolor in reprehenderit in voluptate velit esse "
+													+ "cillum dolore eu fugiat nulla pariatur. Excepteur sint occaecat cupidatat non "
+													+ "proident, sunt in culpa qui officia deserunt mollit anim id est laborum.\n";
+
+	private static final String PUNCTUATION = "\"Wait -- you're leaving at 3:45?!\" she asked; (it was 12/07, "
+														 + "just after 9 p.m.) 'Really...' [see #4 & #7] {x = y * 2 + 1} "
+														 + "~50% off @ $9.99 | a_b `c` <d> ^e\n";
+
+	private static final String SOURCE_SAMPLE = "\tpublic static int countLetters(String text){\n"
+															+ "\t\tint count = 0;\n"
+															+ "\t\tfor(int i = 0; i < text.length(); i++){\n"
+															+ "\t\t\tif(Character.isLetter(text.charAt(i)))\n"
+															+ "\t\t\t\tcount++; // letters only\n"
+															+ "\t\t}\n"
+															+ "\t\treturn count;\n"
+															+ "\t}\n";
+
+	private static long warmupMillis = DEFAULT_WARMUP_MILLIS;
+	private static long measureMillis = DEFAULT_MEASURE_MILLIS;
+	private static String only = null;		// Only benchmarks whose name contains this are run
+	private static int threads = Math.max(2, Runtime.getRuntime().availableProcessors());	// Contention readers
+	private static long blackhole = 0;		// Collects the results of every benchmark
+
+	/**
+	* One call of a benchmark
+	*
+	*/
+	private interface Operation{
+
+		/**
+		* Runs the benchmarked code once
+		*
+		*@return Object The result, which is consumed so that the call isn't optimized away
+		*@throws IOException If a file cannot be read or written
+		*/
+		Object run() throws IOException;
+	}
+
+	/**
+	* Runs every benchmark and prints the results
+	*
+	*@param args -warmup millis, -time millis, -sizes size,size,..., -only name and -threads n, all optional
+	*/
+	public static void main(String[] args){
+		int[] sizes = DEFAULT_SIZES;
+
+		try{
+			for(int i = 0; i < args.length; i++){
+				if(args[i].equals("-warmup"))
+					warmupMillis = Long.parseLong(args[++i]);
+				else if(args[i].equals("-time"))
+					measureMillis = Long.parseLong(args[++i]);
+				else if(args[i].equals("-sizes"))
+					sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+				else if(args[i].equals("-only"))
+					only = args[++i];
+				else if(args[i].equals("-threads"))
+					threads = Integer.parseInt(args[++i]);
+				else
+					throw new IllegalArgumentException(args[i]);
+			}
+		}catch(RuntimeException e){
+			System.out.println("Usage: java AWDBenchmark [-warmup millis] [-time millis] [-sizes size,size,...] "
+									 + "[-only name] [-threads n]");
+			return;
+		}
+
+		System.out.println(String.format(Locale.ROOT, "%-28s %-12s %8s %9s %18s %9s %9s %9s %9s %10s %11s %12s",
+													"benchmark", "corpus", "size", "calls", "throughput", "p50 us",
+													"p90 us", "p99 us", "p99.9 us", "max us", "alloc MB/s", "alloc B/op"));
+
+		try{
+			for(String corpus : CORPORA)
+				for(int size : sizes)
+					runCodecBenchmarks(corpus, size);
+
+			runHashTableBenchmarks();
+			runContentionBenchmarks();
+		}catch(IOException e){
+			System.out.println(e);
+		}
+
+		System.out.println("(blackhole " + blackhole + ")");
+		if(AWDMetrics.ENABLED)
+			System.out.println(AWDMetrics.snapshot());
+	}
+
+	/**
+	* Runs the AWD, Island, NonLetterTranslator, AWDStream and Pipeline benchmarks on one corpus
+	*
+	*@param corpus The name of the corpus
+	*@param size The number of characters in the corpus
+	*@throws IOException If the files used by the AWDStream benchmarks cannot be read or written
+	*/
+	private static void runCodecBenchmarks(String corpus, int size) throws IOException{
+		String text = makeCorpus(corpus, size);
+		String alpha = NonLetterTranslator.translate(text);
+		String awd = AWD.toAWD(alpha);
+		String island = Island.toIsland(alpha);
+
+		measure("AWD.toAWD", corpus, size, alpha.length(), "char", () -> AWD.toAWD(alpha));
+		measure("AWD.toEng", corpus, size, awd.length(), "char", () -> AWD.toEng(awd));
+		measure("Island.toIsland", corpus, size, alpha.length(), "char", () -> Island.toIsland(alpha));
+		measure("Island.toEng", corpus, size, island.length(), "char", () -> Island.toEng(island));
+		measure("AWD.convert ENG->AWD", corpus, size, alpha.length(), "char", () -> AWD.convert(alpha));
+		measure("AWD.convert AWD->ENG", corpus, size, awd.length(), "char", () -> AWD.convert(awd));
+		measure("NLT.translate toAlpha", corpus, size, text.length(), "char",
+				  () -> NonLetterTranslator.translate(text));
+		measure("NLT.translate toNonLetter", corpus, size, alpha.length(), "char",
+				  () -> NonLetterTranslator.translate(alpha));
+
+		// The file pipeline behind convertUsingFile(), with the NonLetterTranslator
+		File textFile = writeTempFile(text);
+		File awdFile = writeTempFile("");
+		File engFile = writeTempFile("");
+		AWDStream.convert(textFile, awdFile, true);
+
+		measure("convertUsingFile ENG->AWD", corpus, size, text.length(), "char",
+				  () -> AWDStream.convert(textFile, awdFile, true));
+		measure("convertUsingFile AWD->ENG", corpus, size, text.length(), "char",
+				  () -> AWDStream.convert(awdFile, engFile, true));
+
+		// The two ways AWDStream reads its input, on alpha text so that only the I/O and the codec are measured
+		AwdCodec codec = new AwdCodec();
+		File alphaFile = writeTempFile(alpha);
+		File alphaAwdFile = writeTempFile(awd);
+
+		measure("AWDStream read ENG->AWD", corpus, size, alpha.length(), "char",
+				  () -> AWDStream.convert(alphaFile, awdFile, false, false, AWDStream.TO_AWD, codec, false));
+		measure("AWDStream mapped ENG->AWD", corpus, size, alpha.length(), "char",
+				  () -> AWDStream.convert(alphaFile, awdFile, false, false, AWDStream.TO_AWD, codec, true));
+		measure("AWDStream read AWD->ENG", corpus, size, awd.length(), "char",
+				  () -> AWDStream.convert(alphaAwdFile, engFile, false, false, AWDStream.TO_ENG, codec, false));
+		measure("AWDStream mapped AWD->ENG", corpus, size, awd.length(), "char",
+				  () -> AWDStream.convert(alphaAwdFile, engFile, false, false, AWDStream.TO_ENG, codec, true));
+
+		// The same with Island in place of AWD
+		IslandCodec islandCodec = new IslandCodec();
+		File alphaIslandFile = writeTempFile(island);
+
+		measure("AWDStream Island ENG->ISL", corpus, size, alpha.length(), "char",
+				  () -> AWDStream.convert(alphaFile, awdFile, false, false, AWDStream.TO_AWD, islandCodec, false));
+		measure("AWDStream Island ISL->ENG", corpus, size, island.length(), "char",
+				  () -> AWDStream.convert(alphaIslandFile, engFile, false, false, AWDStream.TO_ENG, islandCodec, false));
+
+		// The NonLetterTranslator and AWD as a Pipeline, on the same files as convertUsingFile
+		Pipeline.Builder pipeline = Pipeline.builder().add(NltTransform.NAME).add(AwdTransform.NAME);
+		File pipelineAwdFile = writeTempFile("");
+		AWDStream.convert(textFile, pipelineAwdFile, pipeline.encoder());
+
+		measure("Pipeline nlt,awd ENG->AWD", corpus, size, text.length(), "char",
+				  () -> AWDStream.convert(textFile, awdFile, pipeline.encoder()));
+		measure("Pipeline nlt,awd AWD->ENG", corpus, size, text.length(), "char",
+				  () -> AWDStream.convert(pipelineAwdFile, engFile, pipeline.decoder()));
+
+		textFile.delete();
+		awdFile.delete();
+		engFile.delete();
+		pipelineAwdFile.delete();
+		alphaFile.delete();
+		alphaAwdFile.delete();
+		alphaIslandFile.delete();
+	}
+
+	/**
+	* Runs the HashTable benchmarks on a table of ENGBits, one for each letter, whose ids are the letters'
+	* segment masks, and the IntCharTable benchmarks on the same ids and letters
+	*
+	*@throws IOException Never, but Operation allows it
+	*/
+	private static void runHashTableBenchmarks() throws IOException{
+		ENGBit[] bits = new ENGBit[AWD.ALPHABET_SIZE];
+		for(int i = 0; i < bits.length; i++)
+			bits[i] = new ENGBit(String.valueOf((char)('A' + i)), AWD.LETTER_MASKS[i]);
+
+		HashTable table = new HashTable(bits.length);
+		for(ENGBit bit : bits)
+			table.insert(bit);
+
+		measure("HashTable.insert", "alphabet", bits.length, bits.length, "op", () -> {
+			HashTable filled = new HashTable(bits.length);
+			for(ENGBit bit : bits)
+				filled.insert(bit);
+			return filled;
+		});
+		measure("HashTable.find", "alphabet", bits.length, bits.length, "op", () -> {
+			int found = 0;
+			for(ENGBit bit : bits)
+				if(table.find(bit) != null)
+					found++;
+			return found;
+		});
+		measure("HashTable.findLetter", "alphabet", bits.length, bits.length, "op", () -> {
+			int found = 0;
+			for(ENGBit bit : bits)
+				if(table.findLetter(bit.getID()) != null)
+					found++;
+			return found;
+		});
+
+		IntCharTable letters = new IntCharTable(bits.length);
+		for(int i = 0; i < bits.length; i++)
+			letters.put(AWD.LETTER_MASKS[i], (char)('A' + i));
+
+		measure("IntCharTable.put", "alphabet", bits.length, bits.length, "op", () -> {
+			IntCharTable filled = new IntCharTable(bits.length);
+			for(int i = 0; i < bits.length; i++)
+				filled.put(AWD.LETTER_MASKS[i], (char)('A' + i));
+			return filled;
+		});
+		measure("IntCharTable.get", "alphabet", bits.length, bits.length, "op", () -> {
+			int found = 0;
+			for(int i = 0; i < bits.length; i++)
+				if(letters.get(AWD.LETTER_MASKS[i]) != IntCharTable.NO_VALUE)
+					found++;
+			return found;
+		});
+	}
+
+	/**
+	* Runs the shared table benchmarks on 65536 ENGBits: a HashTable that every thread locks as a whole, and a
+	* ConcurrentHashTable
+	*
+	*/
+	private static void runContentionBenchmarks(){
+		ENGBit[] bits = new ENGBit[1 << 16];
+		HashTable locked = new HashTable(bits.length);
+		ConcurrentHashTable striped = new ConcurrentHashTable(bits.length);
+
+		for(int id = 0; id < bits.length; id++){
+			bits[id] = new ENGBit(String.valueOf((char)('A' + id % AWD.ALPHABET_SIZE)), id);
+			locked.insert(bits[id]);
+			striped.insert(bits[id]);
+		}
+
+		measureContention("HashTable synchronized", bits, id -> {
+			synchronized(locked){
+				return locked.findLetter(id);
+			}
+		}, id -> {
+			synchronized(locked){
+				locked.delete(bits[id]);
+				locked.insert(bits[id]);
+			}
+		});
+		measureContention("ConcurrentHashTable", bits, striped::findLetter, id -> {
+			striped.delete(bits[id]);
+			striped.insert(bits[id]);
+		});
+	}
+
+	/**
+	* Measures how many lookups the reader threads manage together while one writer thread keeps deleting and
+	* inserting ENGBits. Only the throughput is printed, since the lookups are far too short to time one by one
+	*
+	*@param name The name of the benchmark
+	*@param bits The ENGBits in the table
+	*@param lookup Looks up the letter of an id
+	*@param write Deletes and inserts the ENGBit of an id
+	*/
+	private static void measureContention(String name, ENGBit[] bits, IntFunction<String> lookup, IntConsumer write){
+		if(only != null && !name.contains(only))
+			return;
+
+		AtomicInteger phase = new AtomicInteger(0);	// 0 while warming up, 1 while measuring, 2 once done
+		long[] lookups = new long[threads];
+		Thread[] workers = new Thread[threads + 1];
+
+		for(int t = 0; t < threads; t++){
+			int reader = t;
+			workers[t] = new Thread(() -> {
+				long count = 0;
+				long found = 0;
+				int id = reader * 7919;
+				int current;
+				while((current = phase.get()) != 2){
+					for(int i = 0; i < 256; i++){
+						id = (id + 7919) & (bits.length - 1);
+						if(lookup.apply(id) != null)
+							found++;
+					}
+					if(current == 1)
+						count += 256;
+				}
+				lookups[reader] = count;
+				blackhole += found;	// racy, but only there to keep the lookups
+			});
+		}
+		workers[threads] = new Thread(() -> {
+			int id = 0;
+			while(phase.get() != 2){
+				id = (id + 31) & (bits.length - 1);
+				write.accept(id);
+			}
+		});
+
+		for(Thread worker : workers)
+			worker.start();
+
+		long elapsed = 0;
+		try{
+			Thread.sleep(warmupMillis);
+			phase.set(1);
+			long start = System.nanoTime();
+			Thread.sleep(measureMillis);
+			phase.set(2);
+			elapsed = System.nanoTime() - start;
+
+			for(Thread worker : workers)
+				worker.join();
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			phase.set(2);
+			return;
+		}
+
+		long total = 0;
+		for(long count : lookups)
+			total += count;
+
+		System.out.println(String.format(Locale.ROOT, "%-28s %-12s %8d %9d %11.2f M%s/s %9s %9s %9s %9s %10s %11s %12s",
+													name, threads + "+1 threads", bits.length, total, total / (elapsed / 1e9) / 1e6,
+													"op", "-", "-", "-", "-", "-", "-", "-"));
+	}
+
+	/**
+	* Warms up and measures one benchmark and prints the results. Nothing is allocated by the measuring
+	* itself, so the allocation figures only count the benchmarked code
+	*
+	*@param name The name of the benchmark
+	*@param corpus The name of the corpus
+	*@param size The number of characters in the corpus
+	*@param units The number of characters or lookups handled by one call
+	*@param unit What the units are, for the throughput
+	*@param operation The benchmarked code
+	*@throws IOException If the benchmarked code throws it
+	*/
+	private static void measure(String name, String corpus, int size, long units, String unit,
+										 Operation operation) throws IOException{
+		if(only != null && !name.contains(only))
+			return;
+
+		long warmupCalls = 0;
+		long start = System.nanoTime();
+		long end = start + warmupMillis * 1000000L;
+		do{
+			consume(operation.run());
+			warmupCalls++;
+		}while(System.nanoTime() < end);
+
+		// Room for twice as many calls as the warmup suggests
+		double callsPerNano = (double)warmupCalls / (System.nanoTime() - start);
+		long[] latencies = new long[(int)Math.min(Integer.MAX_VALUE - 8, callsPerNano * measureMillis * 2000000L + 16)];
+
+		int calls = 0;
+		long allocated = getAllocatedBytes();
+		long now = System.nanoTime();
+		start = now;
+		end = start + measureMillis * 1000000L;
+		do{
+			long before = now;
+			consume(operation.run());
+			now = System.nanoTime();
+			latencies[calls++] = now - before;
+		}while(now < end && calls < latencies.length);
+		long elapsed = now - start;
+		allocated = getAllocatedBytes() - allocated;
+
+		Arrays.sort(latencies, 0, calls);
+		double seconds = elapsed / 1e9;
+
+		String allocation = "n/a";
+		String allocationPerCall = "n/a";
+		if(allocated >= 0){
+			allocation = String.format(Locale.ROOT, "%.1f", allocated / seconds / (1024 * 1024));
+			allocationPerCall = String.valueOf(allocated / calls);
+		}
+
+		System.out.println(String.format(Locale.ROOT, "%-28s %-12s %8d %9d %11.2f M%s/s %9.2f %9.2f %9.2f %9.2f %10.2f %11s %12s",
+													name, corpus, size, calls, units * calls / seconds / 1e6, unit,
+													latencies[(int)(calls * 0.50)] / 1e3, latencies[(int)(calls * 0.90)] / 1e3,
+													latencies[(int)(calls * 0.99)] / 1e3, latencies[(int)(calls * 0.999)] / 1e3,
+													latencies[calls - 1] / 1e3, allocation, allocationPerCall));
+	}
+
+	/**
+	* Repeats the corpus text until it is the given size
+	*
+	*@param corpus The name of the corpus
+	*@param size The number of characters wanted
+	*@return String The corpus text
+	*@throws IOException If the source files cannot be read
+	*/
+	private static String makeCorpus(String corpus, int size) throws IOException{
+		String base;
+		if(corpus.equals("lorem"))
+			base = LOREM;
+		else if(corpus.equals("source"))
+			base = readSources();
+		else
+			base = PUNCTUATION;
+
+		StringBuilder builder = new StringBuilder(size + base.length());
+		while(builder.length() < size)
+			builder.append(base);
+		builder.setLength(size);
+
+		return builder.toString();
+	}
+
+	/**
+	* Reads the .java files in the working directory, keeping only the characters the NonLetterTranslator
+	* knows (printable ASCII, tabs and new lines)
+	*
+	*@return String The source code, or SOURCE_SAMPLE if there are no .java files
+	*@throws IOException If a file cannot be read
+	*/
+	private static String readSources() throws IOException{
+		StringBuilder builder = new StringBuilder();
+
+		Path[] files;
+		try(Stream<Path> list = Files.list(Paths.get("."))){
+			files = list.filter(path -> path.toString().endsWith(".java")).sorted().toArray(Path[]::new);
+		}
+
+		for(Path file : files){
+			for(char ch : new String(Files.readAllBytes(file)).toCharArray()){
+				if((ch >= ' ' && ch <= '~') || ch == '\t' || ch == '\n')
+					builder.append(ch);
+			}
+		}
+
+		if(builder.length() == 0)
+			return SOURCE_SAMPLE;
+		return builder.toString();
+	}
+
+	/**
+	* Writes the text to a temporary file that is deleted when the benchmark exits
+	*
+	*@param text The text to write
+	*@return File The temporary file
+	*@throws IOException If the file cannot be written
+	*/
+	private static File writeTempFile(String text) throws IOException{
+		File file = File.createTempFile("awd-benchmark", ".txt");
+		file.deleteOnExit();
+		Files.write(file.toPath(), text.getBytes());
+		return file;
+	}
+
+	/**
+	* Gets the number of bytes allocated by this thread so far
+	*
+	*@return long The number of bytes, or -1 if the JVM cannot tell
+	*/
+	private static long getAllocatedBytes(){
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(!(bean instanceof com.sun.management.ThreadMXBean))
+			return -1;
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)bean;
+		if(!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled())
+			return -1;
+
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	* Keeps the result of a benchmark from being optimized away, without reading every character of it
+	*
+	*@param result The result of one call
+	*/
+	private static void consume(Object result){
+		if(result instanceof CharSequence)
+			blackhole += ((CharSequence)result).length();
+		else
+			blackhole += System.identityHashCode(result);
+	}
+}
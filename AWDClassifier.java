@@ -0,0 +1,179 @@
+/**
+* AWDClassifier.java (AWD 1.0) by Peter Olson
+*
+* Decides whether a text is AWD or English, so that a file can be converted the right way when no
+* direction is given. A text is AWD when it has at least one digit and every character other than
+* whitespace is a digit from '0' to MAX_AWD_VAL; anything else, including a single letter or punctuation
+* mark, makes it English. Every character of the sample is looked at, so the answer doesn't depend on which
+* part of the text happens to be checked.
+*
+* Bytes are checked eight at a time, SWAR style: a long holding eight ASCII bytes has a constant added to
+* every byte at once, and the high bit of each byte then tells whether that byte was at least the value
+* the constant was made from. Three such sums give the bytes that are visible and the bytes that are
+* digits, with no branch per byte. A byte with its own high bit set isn't ASCII, so the text is English.
+*
+* The answer for a file is cached by its path, along with its length and modification time, so a file that
+* is converted again isn't read twice to classify it.
+*
+* *********** PUBLIC GLOBAL VARIABLES *********************************************
+*
+* static final int SAMPLE_SIZE = 65536				--> Number of bytes at the start of a file that are classified
+*
+* static final int CACHE_SIZE = 1024				--> Number of files whose answers are kept before the cache is
+*																	 emptied
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* static boolean isAwd( File file )					--> Determines whether the file is AWD from its first
+*																	 SAMPLE_SIZE bytes, using the cache
+*
+* static boolean isAwd( ByteBuffer bytes )		--> Determines whether the ASCII bytes are AWD, eight at a time
+*
+* static boolean isAwd( CharSequence text )		--> Determines whether the text is AWD, one character at a time
+*
+* static void clearCache()								--> Forgets the answers of every file
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class AWDClassifier{
+
+	public static final int SAMPLE_SIZE = AWDStream.CHUNK_SIZE;	// Bytes at the start of a file that are classified
+	public static final int CACHE_SIZE = 1024;							// Files whose answers are kept
+
+	private static final long ONES = 0x0101010101010101L;			// 0x01 in every byte
+	private static final long HIGH_BITS = 0x8080808080808080L;		// The high bit of every byte
+
+	// Added to every byte, these set its high bit when the byte is at least '!', at least '0', or above
+	// MAX_AWD_VAL. No byte below 0x80 carries into the next one
+	private static final long VISIBLE_ADD = (0x80 - '!') * ONES;
+	private static final long DIGIT_ADD = (0x80 - '0') * ONES;
+	private static final long ABOVE_DIGIT_ADD = (0x7F - AWD.MAX_AWD_VAL) * ONES;
+
+	private static final Map<String, Answer> CACHE = new ConcurrentHashMap<>();
+
+	/**
+	* Determines whether the file is AWD from its first SAMPLE_SIZE bytes. The answer is cached until the
+	* length or modification time of the file changes
+	*
+	*@param file The file to classify
+	*@return boolean True if the file is AWD, false if it is English
+	*@throws IOException If the file cannot be read
+	*/
+	public static boolean isAwd(File file) throws IOException{
+		String path = file.getAbsolutePath();
+		long length = file.length();
+		long modified = file.lastModified();
+
+		Answer answer = CACHE.get(path);
+		if(answer != null && answer.length == length && answer.modified == modified)
+			return answer.awd;
+
+		ByteBuffer bytes = ByteBuffer.allocate((int)Math.min(SAMPLE_SIZE, length));
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+			while(bytes.hasRemaining() && channel.read(bytes) >= 0);
+		}
+		bytes.flip();
+
+		boolean awd = isAwd(bytes);
+		if(CACHE.size() >= CACHE_SIZE)
+			CACHE.clear();
+		CACHE.put(path, new Answer(length, modified, awd));
+		return awd;
+	}
+
+	/**
+	* Determines whether the bytes between the position and the limit of the buffer are AWD, checking
+	* eight of them at a time. The position of the buffer is left as it is
+	*
+	*@param bytes The bytes of an ASCII-compatible text
+	*@return boolean True if the bytes are AWD, false otherwise
+	*/
+	public static boolean isAwd(ByteBuffer bytes){
+		int i = bytes.position();
+		int limit = bytes.limit();
+		long digits = 0;
+
+		for(; i + 8 <= limit; i += 8){
+			long word = bytes.getLong(i);
+			if((word & HIGH_BITS) != 0)
+				return false;
+
+			long visible = (word + VISIBLE_ADD) & HIGH_BITS;
+			long digit = (word + DIGIT_ADD) & ~(word + ABOVE_DIGIT_ADD) & HIGH_BITS;
+			if((visible & ~digit) != 0)
+				return false;
+			digits |= digit;
+		}
+
+		for(; i < limit; i++){
+			byte b = bytes.get(i);
+			if(b > ' '){
+				if(b < '0' || b > AWD.MAX_AWD_VAL)
+					return false;
+				digits = 1;
+			}else if(b < 0){
+				return false;
+			}
+		}
+
+		return digits != 0;
+	}
+
+	/**
+	* Determines whether the text is AWD, for text that isn't held as bytes
+	*
+	*@param text The text to classify
+	*@return boolean True if the text is AWD, false otherwise
+	*/
+	public static boolean isAwd(CharSequence text){
+		boolean hasDigit = false;
+		for(int i = 0; i < text.length(); i++){
+			char ch = text.charAt(i);
+			if(ch <= ' ')
+				continue;
+			if(ch < '0' || ch > AWD.MAX_AWD_VAL)
+				return false;
+			hasDigit = true;
+		}
+		return hasDigit;
+	}
+
+	/**
+	* Forgets the answers of every file
+	*
+	*/
+	public static void clearCache(){
+		CACHE.clear();
+	}
+
+	/**
+	* Answer Private Class
+	*
+	* Whether a file is AWD, along with the length and modification time it had when it was classified
+	*
+	*/
+	private static class Answer{
+
+		final long length;
+		final long modified;
+		final boolean awd;
+
+		Answer(long length, long modified, boolean awd){
+			this.length = length;
+			this.modified = modified;
+			this.awd = awd;
+		}
+	}
+}
@@ -0,0 +1,416 @@
+/**
+* AWDDictionary.java (AWD 1.0) by Peter Olson
+*
+* Compact binary file holding the tables AWD is built on: the segment mask of each ENG letter, the letter
+* of each segment mask, the end numbers, and the PAS (punctuation alpha sequences) of each punctuation mark
+* used by the NonLetterTranslator.
+*
+* The file is memory-mapped rather than read, so its tables stay outside the Java heap and every JVM on a
+* host that maps the same file shares one copy of it in the page cache. Nothing is parsed when it is
+* loaded: every table is found at an offset given by the header, and a value is only read when it is
+* asked for.
+*
+* A dictionary replaces the built-in tables when its file is named by the awd.dictionary system property,
+*
+*		java -Dawd.dictionary=letters.awdd AWD
+*
+* so that a custom alphabet or new PAS can be swapped in without recompiling. Running this class writes
+* the tables in use to a file, which is a starting point for making such a dictionary.
+*
+* The file is big-endian, and laid out as follows:
+*
+*		int		MAGIC											--> "AWDD"
+*		short		VERSION
+*		short		letterCount									--> Always AWD.ALPHABET_SIZE
+*		short		endNumCount
+*		short		markCount
+*		byte[letterCount]		letter masks				--> Segment mask of each letter, A-Z
+*		byte[MASK_COUNT]		mask letters				--> Letter of each segment mask, in ASCII
+*		byte[endNumCount]		end numbers					--> In ASCII
+*		int[markCount]			mark offsets				--> Where each mark's record starts in the file
+*		mark records										--> The mark and its PAS, each written as a short length
+*																	 followed by that many chars: mark, short PAS count,
+*																	 PAS, PAS, ...
+*
+* *********** PUBLIC GLOBAL VARIABLES *********************************************
+*
+* static final int MAGIC = 0x41574444				--> First four bytes of every dictionary, "AWDD"
+*
+* static final short VERSION = 1						--> Version of the file layout
+*
+* static final int MASK_COUNT = 128					--> Number of 7-bit segment masks
+*
+* static final String PROPERTY = "awd.dictionary"
+*																--> System property naming the dictionary to use
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* static void main( String[] args )					--> Writes the tables in use to a file, or prints a dictionary
+*
+* static AWDDictionary map( Path file )				--> Maps a dictionary file into memory and checks it
+*
+* static AWDDictionary getShared()					--> Returns the dictionary named by the awd.dictionary system
+*																	 property, null if there is none
+*
+* static void write( Path file )						--> Writes the tables in use to a dictionary file
+*
+* int[] getLetterMasks()								--> Returns the segment mask of each letter, A-Z
+*
+* char[] getMaskLetters()								--> Returns the letter of each segment mask
+*
+* char[] getEndNums()									--> Returns the end numbers
+*
+* int getMarkCount()										--> Returns the number of punctuation marks
+*
+* String getMark( int index )							--> Returns a punctuation mark
+*
+* String[] getAliases( int index )					--> Returns the PAS of a punctuation mark
+*
+* String[] getAliases( String mark )				--> Returns the PAS of a punctuation mark, null if the mark
+*																	 isn't in the dictionary
+*
+* *********** PRIVATE METHODS *****************************************************
+*
+* static AWDDictionary loadShared()					--> Maps the dictionary named by the awd.dictionary system
+*																	 property; used by getShared()
+*
+* void check()												--> Checks that the tables make a working alphabet and that
+*																	 every record is inside the file; used by map(..)
+*
+* String getString( int position )					--> Reads a length and that many chars; used by getMark(..)
+*																	 and getAliases(..)
+*
+* static void putString( ByteBuffer buffer, String text )
+*																--> Writes a length and that many chars; used by write(..)
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class AWDDictionary{
+
+	public static final int MAGIC = 0x41574444;		// "AWDD"
+	public static final short VERSION = 1;				// Version of the file layout
+	public static final int MASK_COUNT = 128;			// Number of 7-bit segment masks
+	public static final String PROPERTY = "awd.dictionary";	// System property naming the dictionary to use
+
+	private static final int HEADER_SIZE = 12;
+
+	// Loaded the first time getShared() is called, so that only programs that use it pay for it
+	private static class Shared{
+		static final AWDDictionary DICTIONARY = loadShared();
+	}
+
+	private final ByteBuffer buffer;		// Read only with absolute gets, so it can be shared by threads
+	private final int letterCount;
+	private final int endNumCount;
+	private final int markCount;
+	private final int maskLettersOffset;
+	private final int endNumsOffset;
+	private final int marksOffset;
+
+	/**
+	* Creates a dictionary over the bytes of a dictionary file. The header is checked by map(..)
+	*
+	*@param buffer The bytes of the file
+	*/
+	private AWDDictionary(ByteBuffer buffer){
+		this.buffer = buffer;
+		letterCount = buffer.getShort(6);
+		endNumCount = buffer.getShort(8);
+		markCount = buffer.getShort(10);
+		maskLettersOffset = HEADER_SIZE + letterCount;
+		endNumsOffset = maskLettersOffset + MASK_COUNT;
+		marksOffset = endNumsOffset + endNumCount;
+	}
+
+	/**
+	* Writes the tables in use to a dictionary file, or prints the dictionary in a file
+	*
+	*@param args The file to write, or -print and the file to print
+	*/
+	public static void main(String[] args){
+		try{
+			if(args.length == 2 && args[0].equals("-print")){
+				AWDDictionary dictionary = map(Paths.get(args[1]));
+				System.out.println("Letter masks: " + Arrays.toString(dictionary.getLetterMasks()));
+				System.out.println("Mask letters: " + new String(dictionary.getMaskLetters()));
+				System.out.println("End numbers: " + new String(dictionary.getEndNums()));
+				for(int i = 0; i < dictionary.getMarkCount(); i++)
+					System.out.println("\"" + dictionary.getMark(i) + "\": " + String.join(", ", dictionary.getAliases(i)));
+			}else if(args.length == 1){
+				write(Paths.get(args[0]));
+				System.out.println("Dictionary written to " + args[0]);
+			}else{
+				System.out.println("Usage: java AWDDictionary <file> | -print <file>");
+			}
+		}catch(IOException e){
+			System.out.println(e);
+		}
+	}
+
+	/**
+	* Maps a dictionary file into memory, read-only, and checks that it is a working dictionary
+	*
+	*@param file The dictionary file
+	*@return AWDDictionary The dictionary
+	*@throws IOException If the file cannot be mapped or is not a working dictionary
+	*/
+	public static AWDDictionary map(Path file) throws IOException{
+		ByteBuffer buffer;
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());	// stays mapped once closed
+		}
+
+		if(buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+			throw new IOException("Not an AWD dictionary: " + file);
+		if(buffer.getShort(4) != VERSION)
+			throw new IOException("Unsupported AWD dictionary version " + buffer.getShort(4) + ": " + file);
+
+		AWDDictionary dictionary = new AWDDictionary(buffer);
+		try{
+			dictionary.check();
+		}catch(IndexOutOfBoundsException | NegativeArraySizeException e){
+			throw new IOException("AWD dictionary is cut short: " + file);
+		}
+		return dictionary;
+	}
+
+	/**
+	* Returns the dictionary named by the awd.dictionary system property, which the AWD tables and the
+	* NonLetterTranslator are built from when it is set
+	*
+	*@return AWDDictionary The dictionary, null if the property isn't set or the file could not be used
+	*/
+	public static AWDDictionary getShared(){
+		return Shared.DICTIONARY;
+	}
+
+	/**
+	* Maps the dictionary named by the awd.dictionary system property. A dictionary that can't be used is
+	* reported, and the built-in tables are used instead
+	*
+	*@return AWDDictionary The dictionary, null if the property isn't set or the file could not be used
+	*/
+	private static AWDDictionary loadShared(){
+		String file = System.getProperty(PROPERTY);
+		if(file == null)
+			return null;
+
+		try{
+			return map(Paths.get(file));
+		}catch(IOException e){
+			System.out.println(e + ". Using the built-in dictionary.");
+			return null;
+		}
+	}
+
+	/**
+	* Writes the tables in use, those of AWD and of the NonLetterTranslator, to a dictionary file
+	*
+	*@param file The file to write
+	*@throws IOException If the file cannot be written
+	*/
+	public static void write(Path file) throws IOException{
+		String[] marks = NonLetterTranslator.getPunctuationMarks();
+
+		int size = HEADER_SIZE + AWD.LETTER_MASKS.length + MASK_COUNT + AWD.END_NUMS.length + marks.length * 4;
+		for(int m = 0; m < marks.length; m++){
+			size += 4 + marks[m].length() * 2;
+			for(String pas : NonLetterTranslator.getAliases(m))
+				size += 2 + pas.length() * 2;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		buffer.putInt(MAGIC).putShort(VERSION).putShort((short)AWD.LETTER_MASKS.length)
+				.putShort((short)AWD.END_NUMS.length).putShort((short)marks.length);
+
+		for(int mask : AWD.LETTER_MASKS)
+			buffer.put((byte)mask);
+		for(char letter : AWD.MASK_LETTERS)
+			buffer.put((byte)letter);
+		for(char endNum : AWD.END_NUMS)
+			buffer.put((byte)endNum);
+
+		int offsets = buffer.position();
+		buffer.position(offsets + marks.length * 4);
+		for(int m = 0; m < marks.length; m++){
+			buffer.putInt(offsets + m * 4, buffer.position());
+			putString(buffer, marks[m]);
+
+			String[] aliases = NonLetterTranslator.getAliases(m);
+			buffer.putShort((short)aliases.length);
+			for(String pas : aliases)
+				putString(buffer, pas);
+		}
+
+		Files.write(file, buffer.array());
+	}
+
+	/**
+	* Returns the segment mask of each ENG letter
+	*
+	*@return int[] The masks, indexed by letter - 'A'
+	*/
+	public int[] getLetterMasks(){
+		int[] masks = new int[letterCount];
+		for(int i = 0; i < letterCount; i++)
+			masks[i] = buffer.get(HEADER_SIZE + i);
+		return masks;
+	}
+
+	/**
+	* Returns the ENG letter of each segment mask, including masks that aren't a letter's
+	*
+	*@return char[] The letters, indexed by mask
+	*/
+	public char[] getMaskLetters(){
+		char[] letters = new char[MASK_COUNT];
+		for(int i = 0; i < MASK_COUNT; i++)
+			letters[i] = (char)buffer.get(maskLettersOffset + i);
+		return letters;
+	}
+
+	/**
+	* Returns the numbers used to end each AWD letter
+	*
+	*@return char[] The end numbers
+	*/
+	public char[] getEndNums(){
+		char[] endNums = new char[endNumCount];
+		for(int i = 0; i < endNumCount; i++)
+			endNums[i] = (char)buffer.get(endNumsOffset + i);
+		return endNums;
+	}
+
+	/**
+	* Returns the number of punctuation marks in the dictionary
+	*
+	*@return int The number of marks
+	*/
+	public int getMarkCount(){
+		return markCount;
+	}
+
+	/**
+	* Returns a punctuation mark
+	*
+	*@param index The index of the mark, from 0 to getMarkCount() - 1
+	*@return String The mark
+	*/
+	public String getMark(int index){
+		return getString(buffer.getInt(marksOffset + index * 4));
+	}
+
+	/**
+	* Returns the PAS of a punctuation mark
+	*
+	*@param index The index of the mark, from 0 to getMarkCount() - 1
+	*@return String[] The PAS of the mark
+	*/
+	public String[] getAliases(int index){
+		int position = buffer.getInt(marksOffset + index * 4);
+		position += 2 + buffer.getShort(position) * 2;	// skip the mark
+
+		String[] aliases = new String[buffer.getShort(position)];
+		position += 2;
+		for(int i = 0; i < aliases.length; i++){
+			aliases[i] = getString(position);
+			position += 2 + aliases[i].length() * 2;
+		}
+		return aliases;
+	}
+
+	/**
+	* Returns the PAS of a punctuation mark
+	*
+	*@param mark The punctuation mark
+	*@return String[] The PAS of the mark, null if the mark isn't in the dictionary
+	*/
+	public String[] getAliases(String mark){
+		for(int i = 0; i < markCount; i++)
+			if(getMark(i).equals(mark))
+				return getAliases(i);
+		return null;
+	}
+
+	/**
+	* Checks that the letter tables make an alphabet that can be encoded and decoded again, and that the
+	* end numbers and PAS are ones the translators can read. Every record is visited, so one that runs
+	* past the end of the file throws IndexOutOfBoundsException, and one with a negative length
+	* NegativeArraySizeException
+	*
+	*@throws IOException If the tables aren't a working dictionary
+	*/
+	private void check() throws IOException{
+		if(letterCount != AWD.ALPHABET_SIZE)
+			throw new IOException("AWD dictionary must have " + AWD.ALPHABET_SIZE + " letters, not " + letterCount);
+
+		char[] maskLetters = getMaskLetters();
+		for(char letter : maskLetters)
+			if(letter < 'A' || letter > 'Z')
+				throw new IOException("AWD dictionary has a mask for the non-letter " + letter);
+
+		int[] letterMasks = getLetterMasks();
+		for(int i = 0; i < letterCount; i++)
+			if(letterMasks[i] <= 0 || maskLetters[letterMasks[i]] != 'A' + i)
+				throw new IOException("AWD dictionary's mask for " + (char)('A' + i) + " doesn't decode to it");
+
+		if(markCount < 0)
+			throw new IOException("AWD dictionary has a negative number of marks");
+
+		// The decoders tell end numbers from segments by these digits
+		if(endNumCount == 0)
+			throw new IOException("AWD dictionary has no end numbers");
+		for(char endNum : getEndNums())
+			if(endNum != '0' && endNum != '8' && endNum != '9')
+				throw new IOException("AWD dictionary's end numbers must be 0, 8 or 9, not " + endNum);
+
+		for(int m = 0; m < markCount; m++){
+			getMark(m);
+			for(String pas : getAliases(m)){
+				if(pas.isEmpty())
+					throw new IOException("AWD dictionary has an empty PAS");
+				for(int i = 0; i < pas.length(); i++)
+					if((pas.charAt(i) | 0x20) < 'a' || (pas.charAt(i) | 0x20) > 'z')	// either case
+						throw new IOException("AWD dictionary has a PAS that isn't all letters: " + pas);
+			}
+		}
+	}
+
+	/**
+	* Reads a string written by putString(..)
+	*
+	*@param position Where the string's length is in the file
+	*@return String The string
+	*/
+	private String getString(int position){
+		char[] chars = new char[buffer.getShort(position)];
+		for(int i = 0; i < chars.length; i++)
+			chars[i] = buffer.getChar(position + 2 + i * 2);
+		return new String(chars);
+	}
+
+	/**
+	* Writes a string as its length followed by its chars
+	*
+	*@param buffer Where the string is written
+	*@param text The string
+	*/
+	private static void putString(ByteBuffer buffer, String text){
+		buffer.putShort((short)text.length());
+		for(int i = 0; i < text.length(); i++)
+			buffer.putChar(text.charAt(i));
+	}
+}
@@ -0,0 +1,359 @@
+/**
+* AWDMetrics.java (AWD 1.0) by Peter Olson
+*
+* Counts what the codec, the NonLetterTranslator and HashTable are doing, so that a slowdown can be seen
+* while AWD is running: the characters and letters encoded and decoded and the time spent on them, how
+* often each end number separates letters, how many PAS were written, and how many cells each HashTable
+* probe visited.
+*
+* Metrics are off unless the awd.metrics system property is set:
+*
+*		java -Dawd.metrics=true AWD -serve
+*
+* ENABLED is a constant, so when metrics are off the JIT compiler drops every "if(AWDMetrics.ENABLED)"
+* check from the hot loops along with the counting behind it. When they are on, each codec keeps its own
+* counts for the length of one encode(..) or decode(..) call and adds them here once at the end. The
+* totals are LongAdders, so threads adding at once don't wait on each other.
+*
+* The counts can be pulled as a Snapshot with snapshot(), or read through JMX: the metrics are registered
+* with the platform MBeanServer as AWD:type=Metrics (see AWDMetricsMBean), where jconsole or any other JMX
+* client can read them.
+*
+* *********** PUBLIC GLOBAL VARIABLES *********************************************
+*
+* static final String ENABLED_PROPERTY = "awd.metrics"
+*																--> System property that turns metrics on
+*
+* static final boolean ENABLED						--> True if metrics are counted
+*
+* static final String OBJECT_NAME = "AWD:type=Metrics"
+*																--> Name the metrics are registered under with JMX
+*
+* static final int PROBE_BUCKETS = 16				--> Number of probe lengths counted apart; longer probes are
+*																	 counted in the last one
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* static Snapshot snapshot()							--> Returns the counts so far
+*
+* static void resetAll()								--> Sets every count back to 0
+*
+* static void recordEncode( int characters, int letters, long nanos, long[] separators )
+*																--> Adds the counts of one encode(..) call
+*
+* static void recordDecode( int characters, int letters, long nanos, long[] separators )
+*																--> Adds the counts of one decode(..) call
+*
+* static void recordAliasExpansion()				--> Counts a punctuation mark replaced by a PAS
+*
+* static void recordProbe( int length )				--> Counts a HashTable probe that visited length cells
+*
+* (The getters of AWDMetricsMBean, each reading a new snapshot)
+*
+* *********** PRIVATE METHODS *****************************************************
+*
+* static void addSeparators( long[] separators )	--> Adds a codec's separator counts to the totals; used by
+*																	 recordEncode(..) and recordDecode(..)
+*
+* static void register()								--> Registers the metrics with JMX; used when the class is
+*																	 loaded with metrics on
+*
+* static LongAdder[] newAdders( int count )		--> Creates an array of LongAdders; used when the class is
+*																	 loaded
+*
+* static long[] sum( LongAdder[] adders )			--> Reads an array of LongAdders; used by snapshot()
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class AWDMetrics implements AWDMetricsMBean{
+
+	public static final String ENABLED_PROPERTY = "awd.metrics";			// System property that turns metrics on
+	public static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+	public static final String OBJECT_NAME = "AWD:type=Metrics";		// Name registered with JMX
+	public static final int PROBE_BUCKETS = 16;	// Probe lengths counted apart; longer ones go in the last
+
+	private static final LongAdder CHARACTERS_ENCODED = new LongAdder();
+	private static final LongAdder LETTERS_ENCODED = new LongAdder();
+	private static final LongAdder ENCODE_NANOS = new LongAdder();
+	private static final LongAdder CHARACTERS_DECODED = new LongAdder();
+	private static final LongAdder LETTERS_DECODED = new LongAdder();
+	private static final LongAdder DECODE_NANOS = new LongAdder();
+	private static final LongAdder[] SEPARATORS = newAdders(10);	// Indexed by digit
+	private static final LongAdder ALIAS_EXPANSIONS = new LongAdder();
+	private static final LongAdder[] PROBE_LENGTHS = newAdders(PROBE_BUCKETS);	// Indexed by length - 1
+
+	static{
+		if(ENABLED)
+			register();
+	}
+
+	/**
+	* Snapshot Public Class
+	*
+	* The counts at one moment. The counts are read one after another while other threads may be adding
+	* to them, so they can be slightly out of step with each other
+	*
+	*/
+	public static class Snapshot{
+
+		private final long charactersEncoded;
+		private final long lettersEncoded;
+		private final long encodeNanos;
+		private final long charactersDecoded;
+		private final long lettersDecoded;
+		private final long decodeNanos;
+		private final long[] separators;
+		private final long aliasExpansions;
+		private final long[] probeLengths;
+
+		private Snapshot(){
+			charactersEncoded = CHARACTERS_ENCODED.sum();
+			lettersEncoded = LETTERS_ENCODED.sum();
+			encodeNanos = ENCODE_NANOS.sum();
+			charactersDecoded = CHARACTERS_DECODED.sum();
+			lettersDecoded = LETTERS_DECODED.sum();
+			decodeNanos = DECODE_NANOS.sum();
+			separators = sum(SEPARATORS);
+			aliasExpansions = ALIAS_EXPANSIONS.sum();
+			probeLengths = sum(PROBE_LENGTHS);
+		}
+
+		public long getCharactersEncoded(){
+			return charactersEncoded;
+		}
+
+		public long getLettersEncoded(){
+			return lettersEncoded;
+		}
+
+		public double getEncodeLettersPerSecond(){
+			return encodeNanos == 0 ? 0 : lettersEncoded * 1e9 / encodeNanos;
+		}
+
+		public long getCharactersDecoded(){
+			return charactersDecoded;
+		}
+
+		public long getLettersDecoded(){
+			return lettersDecoded;
+		}
+
+		public double getDecodeLettersPerSecond(){
+			return decodeNanos == 0 ? 0 : lettersDecoded * 1e9 / decodeNanos;
+		}
+
+		public long[] getSeparatorCounts(){
+			return separators.clone();
+		}
+
+		public long getAliasExpansions(){
+			return aliasExpansions;
+		}
+
+		public long[] getProbeLengthCounts(){
+			return probeLengths.clone();
+		}
+
+		public double getAverageProbeLength(){
+			long probes = 0;
+			long cells = 0;
+			for(int i = 0; i < probeLengths.length; i++){
+				probes += probeLengths[i];
+				cells += probeLengths[i] * (i + 1);
+			}
+			return probes == 0 ? 0 : (double)cells / probes;
+		}
+
+		public String toString(){
+			return String.format("encoded %d characters, %d letters (%.0f letters/s); decoded %d characters, "
+										+ "%d letters (%.0f letters/s)%nseparators by digit: %s; PAS: %d%n"
+										+ "HashTable probes by length: %s (average %.2f)",
+										charactersEncoded, lettersEncoded, getEncodeLettersPerSecond(), charactersDecoded,
+										lettersDecoded, getDecodeLettersPerSecond(), Arrays.toString(separators),
+										aliasExpansions, Arrays.toString(probeLengths), getAverageProbeLength());
+		}
+	}
+
+	private AWDMetrics(){
+	}
+
+	/**
+	* Returns the counts so far
+	*
+	*@return Snapshot The counts
+	*/
+	public static Snapshot snapshot(){
+		return new Snapshot();
+	}
+
+	/**
+	* Sets every count back to 0
+	*
+	*/
+	public static void resetAll(){
+		CHARACTERS_ENCODED.reset();
+		LETTERS_ENCODED.reset();
+		ENCODE_NANOS.reset();
+		CHARACTERS_DECODED.reset();
+		LETTERS_DECODED.reset();
+		DECODE_NANOS.reset();
+		for(LongAdder adder : SEPARATORS)
+			adder.reset();
+		ALIAS_EXPANSIONS.reset();
+		for(LongAdder adder : PROBE_LENGTHS)
+			adder.reset();
+	}
+
+	/**
+	* Adds the counts of one encode(..) call and clears the codec's separator counts
+	*
+	*@param characters The number of characters handed to encode(..)
+	*@param letters The number of letters encoded
+	*@param nanos The time the call took
+	*@param separators The number of times each digit ended a letter, indexed by digit
+	*/
+	public static void recordEncode(int characters, int letters, long nanos, long[] separators){
+		CHARACTERS_ENCODED.add(characters);
+		LETTERS_ENCODED.add(letters);
+		ENCODE_NANOS.add(nanos);
+		addSeparators(separators);
+	}
+
+	/**
+	* Adds the counts of one decode(..) call and clears the codec's separator counts
+	*
+	*@param characters The number of characters handed to decode(..)
+	*@param letters The number of letters decoded
+	*@param nanos The time the call took
+	*@param separators The number of times each digit ended a letter, indexed by digit
+	*/
+	public static void recordDecode(int characters, int letters, long nanos, long[] separators){
+		CHARACTERS_DECODED.add(characters);
+		LETTERS_DECODED.add(letters);
+		DECODE_NANOS.add(nanos);
+		addSeparators(separators);
+	}
+
+	/**
+	* Counts a punctuation mark replaced by a PAS
+	*
+	*/
+	public static void recordAliasExpansion(){
+		ALIAS_EXPANSIONS.increment();
+	}
+
+	/**
+	* Counts a HashTable probe
+	*
+	*@param length The number of cells the probe visited
+	*/
+	public static void recordProbe(int length){
+		PROBE_LENGTHS[Math.min(length, PROBE_BUCKETS) - 1].increment();
+	}
+
+	public long getCharactersEncoded(){
+		return snapshot().getCharactersEncoded();
+	}
+
+	public long getLettersEncoded(){
+		return snapshot().getLettersEncoded();
+	}
+
+	public double getEncodeLettersPerSecond(){
+		return snapshot().getEncodeLettersPerSecond();
+	}
+
+	public long getCharactersDecoded(){
+		return snapshot().getCharactersDecoded();
+	}
+
+	public long getLettersDecoded(){
+		return snapshot().getLettersDecoded();
+	}
+
+	public double getDecodeLettersPerSecond(){
+		return snapshot().getDecodeLettersPerSecond();
+	}
+
+	public long[] getSeparatorCounts(){
+		return snapshot().getSeparatorCounts();
+	}
+
+	public long getAliasExpansions(){
+		return snapshot().getAliasExpansions();
+	}
+
+	public long[] getProbeLengthCounts(){
+		return snapshot().getProbeLengthCounts();
+	}
+
+	public double getAverageProbeLength(){
+		return snapshot().getAverageProbeLength();
+	}
+
+	public void reset(){
+		resetAll();
+	}
+
+	/**
+	* Adds a codec's separator counts to the totals and sets them back to 0
+	*
+	*@param separators The number of times each digit ended a letter, indexed by digit
+	*/
+	private static void addSeparators(long[] separators){
+		for(int digit = 0; digit < separators.length; digit++){
+			if(separators[digit] != 0){
+				SEPARATORS[digit].add(separators[digit]);
+				separators[digit] = 0;
+			}
+		}
+	}
+
+	/**
+	* Registers the metrics with the platform MBeanServer. Metrics are still counted if this fails
+	*
+	*/
+	private static void register(){
+		try{
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new AWDMetrics(), new ObjectName(OBJECT_NAME));
+		}catch(JMException e){
+			System.out.println("Cannot register " + OBJECT_NAME + ": " + e);
+		}
+	}
+
+	/**
+	* Creates an array of LongAdders
+	*
+	*@param count The length of the array
+	*@return LongAdder[] The LongAdders
+	*/
+	private static LongAdder[] newAdders(int count){
+		LongAdder[] adders = new LongAdder[count];
+		for(int i = 0; i < count; i++)
+			adders[i] = new LongAdder();
+		return adders;
+	}
+
+	/**
+	* Reads an array of LongAdders
+	*
+	*@param adders The LongAdders
+	*@return long[] The sum of each
+	*/
+	private static long[] sum(LongAdder[] adders){
+		long[] sums = new long[adders.length];
+		for(int i = 0; i < adders.length; i++)
+			sums[i] = adders[i].sum();
+		return sums;
+	}
+}
@@ -0,0 +1,60 @@
+/**
+* AWDMetricsMBean.java (AWD 1.0) by Peter Olson
+*
+* What AWDMetrics shows through JMX, under the name AWD:type=Metrics. Every value is counted from the start
+* of the process, or from the last reset()
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* long getCharactersEncoded()							--> Returns the number of characters handed to encode(..)
+*
+* long getLettersEncoded()								--> Returns the number of English letters encoded
+*
+* double getEncodeLettersPerSecond()				--> Returns the letters encoded per second spent encoding
+*
+* long getCharactersDecoded()							--> Returns the number of characters handed to decode(..)
+*
+* long getLettersDecoded()								--> Returns the number of English letters decoded
+*
+* double getDecodeLettersPerSecond()				--> Returns the letters decoded per second spent decoding
+*
+* long[] getSeparatorCounts()							--> Returns how often each digit 0 - 9 ended a letter
+*
+* long getAliasExpansions()							--> Returns the number of punctuation marks replaced by a PAS
+*
+* long[] getProbeLengthCounts()						--> Returns how many HashTable probes visited 1, 2, ... cells
+*
+* double getAverageProbeLength()						--> Returns the average number of cells a probe visited
+*
+* void reset()												--> Sets every count back to 0
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+public interface AWDMetricsMBean{
+
+	public long getCharactersEncoded();
+
+	public long getLettersEncoded();
+
+	public double getEncodeLettersPerSecond();
+
+	public long getCharactersDecoded();
+
+	public long getLettersDecoded();
+
+	public double getDecodeLettersPerSecond();
+
+	public long[] getSeparatorCounts();
+
+	public long getAliasExpansions();
+
+	public long[] getProbeLengthCounts();
+
+	public double getAverageProbeLength();
+
+	public void reset();
+}
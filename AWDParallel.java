@@ -0,0 +1,471 @@
+/**
+* AWDParallel.java (AWD 1.0) by Peter Olson
+*
+* Converts long texts to and from AWD on every core at once
+*
+* Encoding is a left-to-right fold over clockBits, but each letter's numbers only depend on the segments
+* of the letter just before it. So the text is split into pieces at letter boundaries, each piece is encoded
+* by its own AwdCodec seeded with the segments of the letter before the piece, and the pieces are stitched
+* back together in order. A piece never starts with the same letter that ends the piece before it, since a
+* repeated letter is written as a repeat of the random end number chosen by the piece before.
+*
+* Decoding is split in two phases. Every letter ends with an end number (0, 8 or 9), so an AWD text can be
+* split in front of any number 1-7 that follows an end number. The only state a piece then needs is the
+* clockBits at its start, which is the XOR of every number 1-7 before it. XOR is associative, so phase one
+* finds the XOR of each piece in parallel and adds them up in order, and phase two decodes the pieces in
+* parallel, each seeded with the clockBits before it.
+*
+* The pieces are converted in waves of a few per core, so that only one wave's output is held in memory.
+*
+* *********** PUBLIC GLOBAL VARIABLES *********************************************
+*
+* static final int SPLIT_SIZE = 65536				--> Number of characters encoded by each task
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* static void main( String[] args )				--> Runs the round trip tests
+*
+* static boolean encode( CharSequence text, AwdCodec codec, Appendable out )
+*																--> Converts English letters to AWD in parallel, continuing
+*																	 from the codec's encoding state
+*
+* static boolean decode( CharSequence text, AwdCodec codec, Appendable out )
+*																--> Converts AWD numbers to English in parallel, continuing
+*																	 from the codec's decoding state
+*
+* *********** PRIVATE METHODS *****************************************************
+*
+* static int findSplit( CharSequence text, int position )
+*																--> Finds the first index at or after the position where a
+*																	 piece can start; used by encode(..) method
+*
+* static int getPreviousLetterBits( CharSequence text, int position )
+*																--> Gets the segment mask of the last letter before the
+*																	 position; used by encode(..) method
+*
+* static int findDecodeSplit( CharSequence text, int position )
+*																--> Finds the first index at or after the position where a
+*																	 letter's numbers start; used by decode(..) method
+*
+* static int getSegmentChanges( CharSequence text, int start, int end )
+*																--> Gets the XOR of the numbers 1-7 in part of the text;
+*																	 used by decode(..) method
+*
+* static int tests()										--> Converts texts to AWD and back through files, in parallel
+*																	 and serially, with and without the NonLetterTranslator, and
+*																	 counts the texts that don't come back; used in main(..)
+*
+* static String makeText( int length, Random rand )
+*																--> Makes a text of random words and lines; used in tests()
+*
+* static String roundTrip( String text, boolean useNLTranslator, boolean parallel )
+*																--> Converts the text to AWD and back through files with
+*																	 AWDStream; used in tests()
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+
+public class AWDParallel{
+
+	public static final int SPLIT_SIZE = 64 * 1024;	// Number of characters encoded by each task
+
+	// Number of tasks in each wave
+	private static final int WAVE_SIZE = ForkJoinPool.getCommonPoolParallelism() * 4;
+
+	// Codec used by each worker thread
+	private static final ThreadLocal<AwdCodec> CODECS = ThreadLocal.withInitial(AwdCodec::new);
+
+	/**
+	* Runs the round trip tests
+	*
+	*@param args Command line arguments (not used)
+	*@throws IOException If the test files cannot be written or read
+	*/
+	public static void main(String[] args) throws IOException{
+		int failures = tests();
+		System.out.println(failures == 0 ? "All round trips passed" : failures + " round trips failed");
+	}
+
+	/**
+	* Converts English letters to AWD in parallel on the common ForkJoinPool. The output is the same as
+	* handing the whole text to codec.encode(..), except that the random choices are made by the workers,
+	* each with a generator split from the codec's, so a seeded codec still gives the same output every time.
+	* Afterwards the codec's encoding state is that of the last letter, so the next part of the text can
+	* be handed to either method.
+	*
+	*@param text The English letters to convert
+	*@param codec Holds the encoding state to continue from, and is left with the state after the text
+	*@param out Where the AWD numbers are appended
+	*@return boolean True if the text was converted, false if an unrecognized character was found
+	*@throws IOException If the AWD numbers cannot be appended
+	*/
+	public static boolean encode(CharSequence text, AwdCodec codec, Appendable out) throws IOException{
+		int length = text.length();
+		int pieces = (length + SPLIT_SIZE - 1) / SPLIT_SIZE;
+
+		StringBuilder[] results = new StringBuilder[Math.min(pieces, WAVE_SIZE)];
+		boolean[] converted = new boolean[results.length];
+		int[] endBits = new int[results.length];
+		char[] endNums = new char[results.length];
+		RandomGenerator[] randoms = new RandomGenerator[results.length];
+
+		int startBits = codec.getEncodeBits();
+		char startNum = codec.getLastNum();
+
+		for(int wave = 0; wave < pieces; wave += results.length){
+			int first = wave;
+			int count = Math.min(results.length, pieces - wave);
+
+			// Split in piece order here, so the output doesn't depend on which worker gets which piece
+			for(int task = 0; task < count; task++)
+				randoms[task] = codec.splitRandom();
+
+			try{
+				IntStream.range(0, count).parallel().forEach(task -> {
+					int piece = first + task;
+					int start = findSplit(text, piece * SPLIT_SIZE);
+					int end = findSplit(text, (piece + 1) * SPLIT_SIZE);
+
+					if(results[task] == null)
+						results[task] = new StringBuilder(SPLIT_SIZE * 5);
+					results[task].setLength(0);
+
+					AwdCodec worker = CODECS.get();
+					worker.reset();
+					worker.setRandom(randoms[task]);
+					if(piece == 0)
+						worker.setEncodeState(startBits, startNum);
+					else
+						worker.setEncodeState(getPreviousLetterBits(text, start), (char)0);
+
+					try{
+						converted[task] = worker.encode(text.subSequence(start, end), results[task]);
+					}catch(IOException e){
+						throw new UncheckedIOException(e);	// StringBuilder does not throw IOException
+					}
+
+					endBits[task] = worker.getEncodeBits();
+					endNums[task] = worker.getLastNum();
+				});
+			}catch(UncheckedIOException e){
+				throw e.getCause();
+			}
+
+			// Stitch the pieces together in order
+			for(int task = 0; task < count; task++){
+				out.append(results[task]);
+
+				if(results[task].length() != 0)
+					codec.setEncodeState(endBits[task], endNums[task]);
+
+				if(!converted[task])
+					return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	* Converts AWD numbers to English in parallel on the common ForkJoinPool. The output is the same as
+	* handing the whole text to codec.decode(..). Afterwards the codec's decoding state is that at the end
+	* of the text, so the next part of the text can be handed to either method.
+	*
+	*@param text The AWD numbers to convert
+	*@param codec Holds the decoding state to continue from, and is left with the state after the text
+	*@param out Where the English letters are appended
+	*@return boolean True if the text was converted, false if an invalid character was read
+	*@throws IOException If the English letters cannot be appended
+	*/
+	public static boolean decode(CharSequence text, AwdCodec codec, Appendable out) throws IOException{
+		int length = text.length();
+		int pieces = (length + SPLIT_SIZE - 1) / SPLIT_SIZE;
+
+		int[] starts = new int[pieces + 1];
+		for(int piece = 0; piece <= pieces; piece++)
+			starts[piece] = findDecodeSplit(text, piece * SPLIT_SIZE);
+
+		// Phase one: the clockBits at the start of each piece
+		int[] startBits = new int[pieces];
+		IntStream.range(0, pieces).parallel().forEach(piece -> {
+			startBits[piece] = getSegmentChanges(text, starts[piece], starts[piece + 1]);
+		});
+
+		int clockBits = codec.getDecodeBits();
+		for(int piece = 0; piece < pieces; piece++){
+			int changes = startBits[piece];
+			startBits[piece] = clockBits;
+			clockBits ^= changes;
+		}
+
+		// Phase two: decode the pieces
+		StringBuilder[] results = new StringBuilder[Math.min(pieces, WAVE_SIZE)];
+		boolean[] converted = new boolean[results.length];
+		AwdCodec[] endStates = new AwdCodec[results.length];
+
+		for(int wave = 0; wave < pieces; wave += results.length){
+			int first = wave;
+			int count = Math.min(results.length, pieces - wave);
+
+			try{
+				IntStream.range(0, count).parallel().forEach(task -> {
+					int piece = first + task;
+					int start = starts[piece];
+					int end = starts[piece + 1];
+
+					if(results[task] == null){
+						results[task] = new StringBuilder(SPLIT_SIZE / 2);
+						endStates[task] = new AwdCodec();
+					}
+					results[task].setLength(0);
+
+					AwdCodec worker = CODECS.get();
+					worker.reset();
+					if(piece == 0)
+						worker.copyDecodeState(codec);
+					else
+						worker.setDecodeState(startBits[piece]);
+
+					try{
+						converted[task] = worker.decode(text.subSequence(start, end), results[task]);
+					}catch(IOException e){
+						throw new UncheckedIOException(e);	// StringBuilder does not throw IOException
+					}
+
+					endStates[task].copyDecodeState(worker);
+				});
+			}catch(UncheckedIOException e){
+				throw e.getCause();
+			}
+
+			// Stitch the pieces together in order
+			for(int task = 0; task < count; task++){
+				out.append(results[task]);
+
+				if(starts[first + task] != starts[first + task + 1])
+					codec.copyDecodeState(endStates[task]);
+
+				if(!converted[task])
+					return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	* Finds the first index at or after the position where a piece can start, which is the first letter that
+	* isn't a repeat of the letter before it. Both pieces sharing a boundary find the same index.
+	*
+	*@param text The text being split
+	*@param position The index to start looking from
+	*@return int The index where the piece starts
+	*/
+	private static int findSplit(CharSequence text, int position){
+		int length = text.length();
+		if(position <= 0)
+			return 0;
+		if(position >= length)
+			return length;
+
+		int back = position - 1;
+		while(back >= 0 && text.charAt(back) <= ' ')
+			--back;
+		char previous = back >= 0 ? Character.toUpperCase(text.charAt(back)) : 0;
+
+		while(position < length){
+			char ch = Character.toUpperCase(text.charAt(position));
+			if(ch > ' ' && ch != previous)
+				break;
+			++position;
+		}
+
+		return position;
+	}
+
+	/**
+	* Gets the segment mask of the last letter before the position, skipping whitespace
+	*
+	*@param text The text being split
+	*@param position The index where a piece starts
+	*@return int The segment mask of the letter, 0 if there is none
+	*/
+	private static int getPreviousLetterBits(CharSequence text, int position){
+		int back = position - 1;
+		while(back >= 0 && text.charAt(back) <= ' ')
+			--back;
+		if(back < 0)
+			return 0;
+
+		char letter = Character.toUpperCase(text.charAt(back));
+		if(letter < 'A' || letter > 'Z')
+			return 0;
+
+		return AWD.LETTER_MASKS[letter - 'A'];
+	}
+
+	/**
+	* Finds the first index at or after the position where a piece of AWD can start, which is the first
+	* number 1-7 that follows an end number (whitespace aside). Both pieces sharing a boundary find the
+	* same index.
+	*
+	*@param text The AWD text being split
+	*@param position The index to start looking from
+	*@return int The index where the piece starts
+	*/
+	private static int findDecodeSplit(CharSequence text, int position){
+		int length = text.length();
+		if(position <= 0)
+			return 0;
+		if(position >= length)
+			return length;
+
+		int back = position - 1;
+		while(back >= 0 && text.charAt(back) <= ' ')
+			--back;
+		char previous = back >= 0 ? text.charAt(back) : 0;
+
+		while(position < length){
+			char ch = text.charAt(position);
+			if(ch > ' '){
+				if(ch >= '1' && ch <= '7' && (previous == '0' || previous == '8' || previous == '9'))
+					break;
+				previous = ch;
+			}
+			++position;
+		}
+
+		return position;
+	}
+
+	/**
+	* Gets the XOR of the segments of every number 1-7 in part of the text, which is how much the
+	* clockBits change over that part
+	*
+	*@param text The AWD text
+	*@param start The index of the first character
+	*@param end The index after the last character
+	*@return int The changes to the clockBits
+	*/
+	private static int getSegmentChanges(CharSequence text, int start, int end){
+		int changes = 0;
+		for(int i = start; i < end; i++){
+			char ch = text.charAt(i);
+			if(ch >= '1' && ch <= '7')
+				changes ^= 1 << (ch - '1');
+		}
+		return changes;
+	}
+
+	/**
+	* Converts texts of letters, spaces and newlines to AWD and back through files with AWDStream, in parallel
+	* and serially, with the NonLetterTranslator on and off, and checks that each text comes back. One text is
+	* short, and one is longer than AWDStream.PARALLEL_WINDOW so that it is encoded in more than one window.
+	* Without the NonLetterTranslator only the letters come back, since spaces and newlines aren't encoded
+	*
+	*@return int The number of round trips that didn't give back the text
+	*@throws IOException If the test files cannot be written or read
+	*/
+	private static int tests() throws IOException{
+		Random rand = new Random(7);
+		int failures = 0;
+
+		for(int length : new int[]{5000, AWDStream.PARALLEL_WINDOW + 3 * SPLIT_SIZE}){
+			String text = makeText(length, rand);
+
+			for(int test = 0; test < 4; test++){
+				boolean useNLTranslator = test >= 2;
+				boolean parallel = test % 2 == 1;
+
+				String result = roundTrip(text, useNLTranslator, parallel);
+				String expected = text.toUpperCase();
+				if(!useNLTranslator){
+					expected = expected.replaceAll("\\s", "");
+					result = result.replaceAll("\\s", "");
+				}
+
+				if(!result.stripTrailing().equals(expected.stripTrailing())){
+					System.out.println("Round trip of " + length + " characters failed, NLT = " + useNLTranslator +
+											 ", parallel = " + parallel);
+					++failures;
+				}
+			}
+		}
+
+		return failures;
+	}
+
+	/**
+	* Makes a text of random words, separated by spaces and broken into lines, some of them only one word
+	* long. The OC letters of the NonLetterTranslator are picked often, so that many lines hold an OC pair
+	*
+	*@param length The number of characters in the text
+	*@param rand Decides the words
+	*@return String The text
+	*/
+	private static String makeText(int length, Random rand){
+		String ocLetters = "JQVXZ";
+		String lineSeparator = System.getProperty("line.separator");
+		StringBuilder text = new StringBuilder(length + lineSeparator.length());
+
+		int lineStart = 0;
+		while(text.length() < length){
+			int wordLength = 1 + rand.nextInt(8);
+			for(int i = 0; i < wordLength; i++){
+				if(rand.nextInt(4) == 0)
+					text.append(ocLetters.charAt(rand.nextInt(ocLetters.length())));
+				else
+					text.append((char)((rand.nextBoolean() ? 'a' : 'A') + rand.nextInt(AWD.ALPHABET_SIZE)));
+			}
+
+			if(text.length() - lineStart > 60 || text.length() - lineStart == wordLength && rand.nextInt(8) == 0){
+				text.append(lineSeparator);
+				lineStart = text.length();
+			}else{
+				text.append(' ');
+			}
+		}
+		text.append(lineSeparator);
+
+		return text.toString();
+	}
+
+	/**
+	* Converts the text to AWD and back to English through files with AWDStream
+	*
+	*@param text The text to convert
+	*@param useNLTranslator True if the NonLetterTranslator should be used, false otherwise
+	*@param parallel True if the text should be converted in parallel, false otherwise
+	*@return String The English read back from the AWD, or an empty String if a conversion stopped
+	*@throws IOException If the test files cannot be written or read
+	*/
+	private static String roundTrip(String text, boolean useNLTranslator, boolean parallel) throws IOException{
+		File english = File.createTempFile("awd", ".txt");
+		File awd = File.createTempFile("awd", ".awd");
+		File back = File.createTempFile("awd", ".txt");
+
+		try{
+			Files.writeString(english.toPath(), text);
+			if(!AWDStream.convert(english, awd, useNLTranslator, parallel) ||
+				!AWDStream.convert(awd, back, useNLTranslator, parallel))
+				return "";
+			return Files.readString(back.toPath());
+		}finally{
+			english.delete();
+			awd.delete();
+			back.delete();
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/**
+* AWDRandom.java (AWD 1.0) by Peter Olson
+*
+* Where the random choices of AWD come from: the order of the segment numbers and the end number of each
+* letter, and the PAS and OCs picked by the NonLetterTranslator.
+*
+* By default every AwdCodec has a SplittableRandom of its own, and the NonLetterTranslator uses the
+* calling thread's ThreadLocalRandom, so no two threads ever share a generator or wait on each other's
+* seed. When the awd.seed system property is set,
+*
+*		java -Dawd.seed=42 AWDBenchmark
+*
+* every generator starts from that seed instead, and a codec goes back to it whenever it is reset. The
+* same input then gives the same output byte for byte, run after run, which makes tests and benchmark runs
+* repeatable. Any RandomGenerator can also be handed to an AwdCodec or to NonLetterTranslator.translate(..)
+* directly.
+*
+* *********** PUBLIC GLOBAL VARIABLES *********************************************
+*
+* static final String SEED_PROPERTY = "awd.seed"	--> System property holding the seed
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* static boolean isSeeded()								--> Returns true if the awd.seed system property is set
+*
+* static long getSeed()									--> Returns the seed given by the awd.seed system property
+*
+* static RandomGenerator newGenerator()				--> Creates a generator for a new AwdCodec
+*
+* static RandomGenerator current()					--> Returns the calling thread's generator
+*
+* static RandomGenerator split( RandomGenerator parent )
+*																--> Creates a generator independent of the parent, but
+*																	 decided by it, for a piece of work done elsewhere
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+public class AWDRandom{
+
+	public static final String SEED_PROPERTY = "awd.seed";	// System property holding the seed
+
+	private static final Long SEED = Long.getLong(SEED_PROPERTY);	// null if the property isn't set
+
+	// Generator of each thread when a seed is given, since ThreadLocalRandom cannot be seeded
+	private static final ThreadLocal<RandomGenerator> SEEDED = ThreadLocal.withInitial(() -> new SplittableRandom(SEED));
+
+	/**
+	* Returns true if the awd.seed system property is set
+	*
+	*@return boolean True if random choices are made from a seed, false otherwise
+	*/
+	public static boolean isSeeded(){
+		return SEED != null;
+	}
+
+	/**
+	* Returns the seed given by the awd.seed system property
+	*
+	*@return long The seed
+	*@throws IllegalStateException If the property isn't set
+	*/
+	public static long getSeed(){
+		if(SEED == null)
+			throw new IllegalStateException(SEED_PROPERTY + " is not set");
+		return SEED;
+	}
+
+	/**
+	* Creates a generator for a new AwdCodec: one started from the seed if there is one, otherwise one
+	* with a seed of its own
+	*
+	*@return RandomGenerator The generator
+	*/
+	public static RandomGenerator newGenerator(){
+		return SEED != null ? new SplittableRandom(SEED) : new SplittableRandom();
+	}
+
+	/**
+	* Returns the calling thread's generator, which must not be handed to another thread
+	*
+	*@return RandomGenerator The thread's ThreadLocalRandom, or its seeded generator if there is a seed
+	*/
+	public static RandomGenerator current(){
+		return SEED != null ? SEEDED.get() : ThreadLocalRandom.current();
+	}
+
+	/**
+	* Creates a generator whose numbers are independent of the parent's, but which is decided by the
+	* parent's state, so that work split between threads still gives the same output from the same seed
+	*
+	*@param parent The generator to split
+	*@return RandomGenerator The new generator
+	*/
+	public static RandomGenerator split(RandomGenerator parent){
+		if(parent instanceof RandomGenerator.SplittableGenerator)
+			return ((RandomGenerator.SplittableGenerator)parent).split();
+		return new SplittableRandom(parent.nextLong());
+	}
+}
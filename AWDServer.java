@@ -0,0 +1,413 @@
+/**
+* AWDServer.java (AWD 1.0) by Peter Olson
+*
+* Keeps AWD running as a server, so that other programs can convert text without starting a new JVM and
+* building the translation tables every time. Runs when AWD is started with -serve:
+*
+*		java AWD -serve [-port n | -socket path]
+*
+*		-port				--> The TCP port to listen on, on the loopback address only. DEFAULT_PORT by default
+*		-socket			--> A Unix-domain socket file to listen on instead of a TCP port. The file is
+*								 created, and deleted again when the server stops
+*
+* A client sends any number of requests over one connection and gets one response for each, in order.
+* Every number is big-endian, and all text is UTF-8:
+*
+*		request			--> byte direction (TO_AWD or TO_ENG), byte flags (NLT_FLAG to use the
+*								 NonLetterTranslator, ISLAND_FLAG to use Island instead of AWD), int length,
+*								 then length bytes of text
+*		response			--> byte status (OK, STOPPED or BAD_REQUEST), int length, then length bytes of text.
+*								 A STOPPED response is followed by another int length and that many bytes
+*								 saying why the conversion stopped
+*
+* A STOPPED response holds the text converted up to the first character that could not be converted, and
+* the reason, such as the character, is sent to the client rather than printed by the server. A
+* BAD_REQUEST response holds an error message, and the server closes the connection after sending it.
+*
+* The text of a request is read READ_SIZE bytes at a time, decoded and converted as it comes, so the
+* server holds no more than the converted text, however long the client says the request is. The
+* converted text has to be held until it is sent, since the response starts with its length, and with
+* the NonLetterTranslator it can be over ten times longer than the request, so MAX_REQUEST is kept small.
+*
+* Each connection is handled on a virtual thread when the JVM has them, so that thousands of idle
+* connections cost no more than their sockets; on older JVMs it gets a platform thread from a cached pool.
+* Each connection has an AwdCodec and an IslandCodec of its own, while the letter masks, PAS and OCs are
+* the static tables of AWD and the NonLetterTranslator, built once and shared by every connection.
+*
+* *********** PUBLIC GLOBAL VARIABLES *********************************************
+*
+* static final String USAGE							--> How to start the server
+*
+* static final int DEFAULT_PORT = 4293				--> Port listened on when none is given
+*
+* static final int MAX_REQUEST = 4194304			--> Largest number of bytes of text accepted in one request
+*
+* static final int READ_SIZE = 65536					--> Number of bytes of text read and converted at a time
+*
+* static final int NLT_FLAG = 1						--> Request flag for using the NonLetterTranslator
+*
+* static final int ISLAND_FLAG = 2					--> Request flag for using Island instead of AWD
+*
+* static final int OK = 0								--> Response status for text converted in full
+*
+* static final int STOPPED = 1							--> Response status for text converted up to an invalid
+*																	 character
+*
+* static final int BAD_REQUEST = 2					--> Response status for a request that could not be read
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* static int run( String[] args )						--> Starts the server and handles connections until the
+*																	 process is stopped; returns the exit status on failure
+*
+* *********** PRIVATE METHODS *****************************************************
+*
+* static ExecutorService newConnectionExecutor()	--> Creates the executor that runs one task per connection;
+*																	 used by run(..) method
+*
+* static void serve( SocketChannel channel )		--> Answers the requests of one connection until the client
+*																	 closes it; used by run(..) method
+*
+* static Transform.Stage newStage( boolean encode, boolean useNLTranslator, AbstractCodec codec )
+*																--> Creates the stage converting one request; used by
+*																	 serve(..)
+*
+* static boolean convert( ByteBuffer bytes, boolean endOfInput, CharsetDecoder decoder, CharBuffer chars,
+*									Transform.Stage stage, StringBuilder out )
+*																--> Decodes and converts the bytes read so far; used by
+*																	 serve(..)
+*
+* static void respond( DataOutputStream out, int status, CharSequence text, String reason )
+*																--> Writes one response; used by serve(..) method
+*
+* static void writeText( DataOutputStream out, CharSequence text )
+*																--> Writes the UTF-8 length and bytes of a text; used by
+*																	 respond(..)
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class AWDServer{
+
+	public static final String USAGE = "Usage: java AWD -serve [-port n | -socket path]";
+
+	public static final int DEFAULT_PORT = 4293;				// Port listened on when none is given
+	public static final int MAX_REQUEST = 4 * 1024 * 1024;	// Largest number of bytes of text in one request
+	public static final int READ_SIZE = 64 * 1024;				// Bytes of text read and converted at a time
+
+	public static final int NLT_FLAG = 1;		// Request flag for using the NonLetterTranslator
+	public static final int ISLAND_FLAG = 2;	// Request flag for using Island instead of AWD
+
+	public static final int OK = 0;				// Converted in full
+	public static final int STOPPED = 1;		// Converted up to an invalid character
+	public static final int BAD_REQUEST = 2;	// The request could not be read; the connection is closed
+
+	private static final Transform NLT = new NltTransform();
+
+	/**
+	* Starts the server on the port or socket named by the arguments and hands each connection to a thread
+	* of its own. Only returns if the arguments are wrong or the server cannot listen
+	*
+	*@param args The command line arguments, starting with -serve, see USAGE
+	*@return int 1 if the server could not be started, 2 if the arguments are wrong
+	*/
+	public static int run(String[] args){
+		int port = DEFAULT_PORT;
+		Path socketFile = null;
+
+		try{
+			for(int i = 1; i < args.length; i++){
+				if(args[i].equals("-port") && i + 1 < args.length)
+					port = Integer.parseInt(args[++i]);
+				else if(args[i].equals("-socket") && i + 1 < args.length)
+					socketFile = Paths.get(args[++i]);
+				else
+					throw new IllegalArgumentException(args[i]);
+			}
+		}catch(IllegalArgumentException e){
+			System.out.println(USAGE);
+			return 2;
+		}
+
+		SocketAddress address;
+		ServerSocketChannel server;
+		try{
+			if(socketFile != null){
+				address = UnixDomainSocketAddress.of(socketFile);
+				server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+				Path toDelete = socketFile;
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+					try{
+						Files.deleteIfExists(toDelete);
+					}catch(IOException e){
+						//nothing left to do about it
+					}
+				}));
+			}else{
+				address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+				server = ServerSocketChannel.open();
+			}
+			server.bind(address);
+		}catch(IOException | UnsupportedOperationException e){
+			System.out.println("Cannot listen on " + (socketFile != null ? socketFile : "port " + port) + ": " + e);
+			return 1;
+		}
+
+		ExecutorService executor = newConnectionExecutor();
+		System.out.println("AWD server listening on " + address);
+
+		while(true){
+			try{
+				SocketChannel channel = server.accept();
+				executor.execute(() -> serve(channel));
+			}catch(IOException e){
+				System.out.println("Cannot accept a connection: " + e);
+			}
+		}
+	}
+
+	/**
+	* Creates the executor that runs one task per connection. Executors.newVirtualThreadPerTaskExecutor()
+	* is looked up by name so that AWD still compiles and runs on JVMs from before virtual threads, which
+	* get a cached pool of daemon threads instead
+	*
+	*@return ExecutorService The executor
+	*/
+	private static ExecutorService newConnectionExecutor(){
+		try{
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}catch(ReflectiveOperationException e){
+			return Executors.newCachedThreadPool(task -> {
+				Thread thread = new Thread(task, "AWDServer connection");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	* Answers the requests of one connection, in order, until the client closes it or sends a request that
+	* cannot be read. The text of a request is read READ_SIZE bytes at a time and converted as it comes,
+	* so only the converted text is held in memory, and nothing is set aside for a length that hasn't
+	* arrived
+	*
+	*@param channel The connection
+	*/
+	private static void serve(SocketChannel channel){
+		try(channel;
+			 DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+			 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))){
+
+			AwdCodec awdCodec = new AwdCodec();
+			IslandCodec islandCodec = new IslandCodec();
+			awdCodec.setQuiet(true);
+			islandCodec.setQuiet(true);
+
+			CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+															.onMalformedInput(CodingErrorAction.REPLACE)
+															.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			StringBuilder result = new StringBuilder();
+
+			int direction;
+			while((direction = in.read()) != -1){
+				int flags = in.readUnsignedByte();
+				int length = in.readInt();
+
+				if(direction != AWDStream.TO_AWD && direction != AWDStream.TO_ENG){
+					respond(out, BAD_REQUEST, "Unknown direction " + direction, null);
+					return;
+				}
+				if(length < 0 || length > MAX_REQUEST){
+					respond(out, BAD_REQUEST, "Text length " + length + " is not between 0 and " + MAX_REQUEST, null);
+					return;
+				}
+
+				AbstractCodec codec = (flags & ISLAND_FLAG) != 0 ? islandCodec : awdCodec;
+				Transform.Stage stage = newStage(direction == AWDStream.TO_AWD, (flags & NLT_FLAG) != 0, codec);
+				//sized to the request, so a connection holds no buffers between requests and small ones stay small
+				ByteBuffer bytes = ByteBuffer.allocate(Math.max(Math.min(length, READ_SIZE), 16));
+				CharBuffer chars = CharBuffer.allocate(bytes.capacity());
+				result.setLength(0);
+				decoder.reset();
+				boolean converted = true;
+
+				//after a stop the rest of the text is still read, so that the next request starts in the right place
+				for(int remaining = length; remaining > 0; ){
+					int read = in.read(bytes.array(), bytes.position(), Math.min(bytes.remaining(), remaining));
+					if(read < 0)
+						throw new EOFException();
+					remaining -= read;
+					bytes.position(bytes.position() + read);
+
+					if(converted)
+						converted = convert(bytes, remaining == 0, decoder, chars, stage, result);
+					else
+						bytes.clear();
+				}
+				if(length == 0)
+					converted = convert(bytes, true, decoder, chars, stage, result);
+
+				//what the stages held back is converted even after a stop, as far as it goes
+				converted = stage.finish(result) && converted;
+				//the NonLetterTranslator only stops at a PAS it can't read, and keeps no reason of its own
+				String reason = codec.getStopReason();
+				if(reason == null)
+					reason = NonLetterTranslator.UNRECOGNIZED_PAS;
+				respond(out, converted ? OK : STOPPED, result, reason);
+			}
+		}catch(EOFException e){
+			//the client closed the connection in the middle of a request
+		}catch(IOException e){
+			System.out.println("Connection failed: " + e);
+		}
+	}
+
+	/**
+	* Creates the stage that converts the text of one request. The codec is reset first, so that each request
+	* is converted the same way as a file of its own. Encoding to AWD with the NonLetterTranslator is done in
+	* one pass by a NltTransform.FusedEncodeStage. The NonLetterTranslator's decoding stage is quiet, like
+	* the codec, so a PAS it can't read is sent back to the client instead of printed
+	*
+	*@param encode True to convert English to the cipher, false to convert back
+	*@param useNLTranslator True if the NonLetterTranslator is used, false otherwise
+	*@param codec The connection's codec for the cipher asked for
+	*@return Transform.Stage The stage
+	*/
+	private static Transform.Stage newStage(boolean encode, boolean useNLTranslator, AbstractCodec codec){
+		codec.reset();
+		if(useNLTranslator && encode && codec instanceof AwdCodec)
+			return new NltTransform.FusedEncodeStage((AwdCodec)codec);
+
+		Transform.Stage codecStage = new Transform.CodecStage(codec, encode);
+		if(!useNLTranslator)
+			return codecStage;
+
+		if(encode)
+			return Pipeline.of(NLT.newStage(true, codec.getRandom()), codecStage);
+		return Pipeline.of(codecStage, new NltTransform.DecodeStage(true));
+	}
+
+	/**
+	* Decodes the bytes read so far to characters and puts them through the stage. A character whose bytes
+	* haven't all been read yet is left in the buffer for the next call
+	*
+	*@param bytes The bytes read, from the start of the buffer up to its position
+	*@param endOfInput True if the last byte of the text has been read
+	*@param decoder The connection's UTF-8 decoder
+	*@param chars The buffer the characters are decoded into
+	*@param stage The stage converting the text
+	*@param out Where the converted text is appended
+	*@return boolean True if the characters were converted, false if the conversion stopped
+	*@throws IOException Never, since out is a StringBuilder
+	*/
+	private static boolean convert(ByteBuffer bytes, boolean endOfInput, CharsetDecoder decoder, CharBuffer chars,
+											 Transform.Stage stage, StringBuilder out) throws IOException{
+		bytes.flip();
+		boolean converted = true;
+		CoderResult coderResult;
+		do{
+			coderResult = decoder.decode(bytes, chars, endOfInput);
+			chars.flip();
+			converted = stage.process(chars, out);
+			chars.clear();
+		}while(converted && coderResult.isOverflow());
+
+		if(converted && endOfInput){
+			decoder.flush(chars);
+			chars.flip();
+			converted = stage.process(chars, out);
+			chars.clear();
+		}
+
+		bytes.compact();
+		return converted;
+	}
+
+	/**
+	* Writes one response and sends it right away
+	*
+	*@param out The connection's output
+	*@param status OK, STOPPED or BAD_REQUEST
+	*@param text The converted text or the error message
+	*@param reason Why the conversion stopped, written after the text of a STOPPED response
+	*@throws IOException If the response cannot be sent
+	*/
+	private static void respond(DataOutputStream out, int status, CharSequence text, String reason)
+											throws IOException{
+		out.writeByte(status);
+		writeText(out, text);
+		if(status == STOPPED)
+			writeText(out, reason != null ? reason : "");
+		out.flush();
+	}
+
+	/**
+	* Writes the length of the text in UTF-8 bytes, then the text, READ_SIZE bytes at a time so that no copy
+	* of the whole text is made. A surrogate without its pair is written as '?', as String.getBytes(..) does
+	*
+	*@param out The connection's output
+	*@param text The text
+	*@throws IOException If the text cannot be sent
+	*/
+	private static void writeText(DataOutputStream out, CharSequence text) throws IOException{
+		int length = 0;
+		for(int i = 0; i < text.length(); i++){
+			char ch = text.charAt(i);
+			if(ch < 0x80){
+				length++;
+			}else if(ch < 0x800){
+				length += 2;
+			}else if(Character.isHighSurrogate(ch) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))){
+				length += 4;
+				i++;
+			}else{
+				length += Character.isSurrogate(ch) ? 1 : 3;
+			}
+		}
+		out.writeInt(length);
+
+		CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+															.onMalformedInput(CodingErrorAction.REPLACE)
+															.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		CharBuffer chars = CharBuffer.wrap(text);
+		ByteBuffer bytes = ByteBuffer.allocate(Math.min(Math.max(length, 16), READ_SIZE));
+		CoderResult coderResult;
+		do{
+			coderResult = encoder.encode(chars, bytes, true);
+			if(coderResult.isUnderflow())
+				coderResult = encoder.flush(bytes);
+			out.write(bytes.array(), 0, bytes.position());
+			bytes.clear();
+		}while(coderResult.isOverflow());
+	}
+}
@@ -0,0 +1,989 @@
+/**
+* AWDStream.java (AWD 1.0) by Peter Olson
+*
+* Converts files between AWD and English one chunk at a time, so that the whole document never has to be
+* held in memory at once
+*
+* The conversion is split into three stages:
+*
+*		reader stage		--> Reads a chunk of bytes from the input FileChannel and decodes them into characters.
+*									 Large files are memory-mapped instead, and ASCII chunks are handed on as a view
+*									 of the mapped bytes without being copied or decoded
+*		codec stage			--> Encodes or decodes the chunk with a Codec, AwdCodec for AWD or IslandCodec for
+*									 Island, which carries its state over to the next chunk. An AwdCodec decodes
+*									 mapped ASCII chunks straight from their bytes, eight at a time
+*		writer stage		--> Buffers the converted characters and writes them to the output FileChannel,
+*									 putting ASCII characters straight into its direct buffer
+*
+* *********** PUBLIC GLOBAL VARIABLES *********************************************
+*
+* static final int CHUNK_SIZE = 65536				--> Number of bytes read and written per chunk
+*
+* static final int NLT_PIECE_SIZE = 1024			--> Largest number of alpha characters handed to the
+*																	 NonLetterTranslator at once when decoding
+*
+* static final int PARALLEL_WINDOW = 4194304		--> Number of characters handed to AWDParallel at once
+*																	 when converting in parallel
+*
+* static final int DETECT = 0							--> Direction decided by the start of the file
+*
+* static final int TO_AWD = 1							--> Direction for converting English to AWD (or to the
+*																	 codec's cipher)
+*
+* static final int TO_ENG = 2							--> Direction for converting AWD (or the codec's cipher) to
+*																	 English
+*
+* static final long MAP_THRESHOLD = 1048576		--> Size from which input files are memory-mapped instead of read
+*
+* static final int MAP_SIZE = 67108864				--> Number of bytes of the input file mapped at once
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* static boolean convert( File input, File output, boolean useNLTranslator )
+*																--> Converts the input file to AWD or to English and writes
+*																	 the translation to the output file. Returns false if the
+*																	 conversion had to stop early
+*
+* static boolean convert( File input, File output, boolean useNLTranslator, boolean parallel )
+*																--> Same as above, optionally encoding or decoding on every
+*																	 core with AWDParallel
+*
+* static boolean convert( File input, File output, boolean useNLTranslator, boolean parallel, int direction,
+*								  Codec codec )
+*																--> Same as above, converting in the given direction with
+*																	 the given codec, so that a codec can be reused across files
+*																	 and Island can be used instead of AWD
+*
+* static boolean convert( File input, File output, boolean useNLTranslator, boolean parallel, int direction,
+*								  Codec codec, boolean mapped )
+*																--> Same as above, reading the input file through a memory
+*																	 mapping when mapped is true
+*
+* static boolean convert( File input, File output, Transform.Stage stage )
+*																--> Converts the input file through the stage, e.g. a
+*																	 Pipeline, and writes the result to the output file
+*
+* static void print( File file, PrintStream out )	--> Prints the contents of the file, one chunk at a time
+*
+* *********** PRIVATE METHODS *****************************************************
+*
+* static boolean isAsciiCompatible( Charset charset )
+*																--> Determines whether ASCII characters are single bytes of
+*																	 the same value in the charset; used by MappedReader and
+*																	 ChunkWriter
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+public class AWDStream{
+
+	public static final int CHUNK_SIZE = 64 * 1024;	// Number of bytes read and written per chunk
+	public static final int NLT_PIECE_SIZE = 1024;	// Largest number of alpha characters translated at once
+	public static final int PARALLEL_WINDOW = 1 << 22;	// Number of characters converted in parallel at once
+
+	// Directions a file can be converted in
+	public static final int DETECT = 0;	// Decided by the start of the file (see AWDClassifier)
+	public static final int TO_AWD = 1;	// English to AWD
+	public static final int TO_ENG = 2;	// AWD to English
+
+	public static final long MAP_THRESHOLD = 1 << 20;	// Size from which input files are memory-mapped
+	public static final int MAP_SIZE = 1 << 26;			// Number of bytes of the input file mapped at once
+
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	// True if ASCII text can be read and written without the charset's decoder and encoder
+	private static final boolean ASCII_COMPATIBLE = isAsciiCompatible(Charset.defaultCharset());
+
+	/**
+	* Converts the input file to AWD or to English and writes the translation to the output file. Whether
+	* the file is converted to English or to AWD is decided by the start of the file
+	*
+	*@param input The file to be translated
+	*@param output The file to write the translation to
+	*@param useNLTranslator True if the NonLetterTranslator should be used, false otherwise
+	*@return boolean True if the whole file was converted, false if the conversion had to stop early
+	*@throws IOException If the input file cannot be read or the output file cannot be written
+	*/
+	public static boolean convert(File input, File output, boolean useNLTranslator) throws IOException{
+		return convert(input, output, useNLTranslator, false);
+	}
+
+	/**
+	* Converts the input file to AWD or to English and writes the translation to the output file. When
+	* converting in parallel, PARALLEL_WINDOW characters at a time are handed to AWDParallel, which converts
+	* them on every core
+	*
+	*@param input The file to be translated
+	*@param output The file to write the translation to
+	*@param useNLTranslator True if the NonLetterTranslator should be used, false otherwise
+	*@param parallel True if the file should be converted in parallel, false otherwise
+	*@return boolean True if the whole file was converted, false if the conversion had to stop early
+	*@throws IOException If the input file cannot be read or the output file cannot be written
+	*/
+	public static boolean convert(File input, File output, boolean useNLTranslator, boolean parallel)
+		throws IOException{
+
+		return convert(input, output, useNLTranslator, parallel, DETECT, new AwdCodec());
+	}
+
+	/**
+	* Converts the input file in the given direction and writes the translation to the output file. The codec
+	* is reset first, so one codec can be used for many files, one file at a time
+	*
+	*@param input The file to be translated
+	*@param output The file to write the translation to
+	*@param useNLTranslator True if the NonLetterTranslator should be used, false otherwise
+	*@param parallel True if the file should be converted in parallel, false otherwise
+	*@param direction TO_AWD, TO_ENG, or DETECT to decide by the start of the file
+	*@param codec The codec used to convert the file; only an AwdCodec converts in parallel
+	*@return boolean True if the whole file was converted, false if the conversion had to stop early
+	*@throws IOException If the input file cannot be read or the output file cannot be written
+	*/
+	public static boolean convert(File input, File output, boolean useNLTranslator, boolean parallel, int direction,
+											Codec codec) throws IOException{
+
+		return convert(input, output, useNLTranslator, parallel, direction, codec, input.length() >= MAP_THRESHOLD);
+	}
+
+	/**
+	* Converts the input file in the given direction and writes the translation to the output file. A mapped
+	* input file is read straight from the page cache, MAP_SIZE bytes at a time, which saves copying every
+	* byte into a buffer first; small files are quicker to read than to map
+	*
+	*@param input The file to be translated
+	*@param output The file to write the translation to
+	*@param useNLTranslator True if the NonLetterTranslator should be used, false otherwise
+	*@param parallel True if the file should be converted in parallel, false otherwise
+	*@param direction TO_AWD, TO_ENG, or DETECT to decide by the start of the file
+	*@param codec The codec used to convert the file; only an AwdCodec converts in parallel
+	*@param mapped True if the input file should be memory-mapped, false if it should be read
+	*@return boolean True if the whole file was converted, false if the conversion had to stop early
+	*@throws IOException If the input file cannot be read or the output file cannot be written
+	*/
+	public static boolean convert(File input, File output, boolean useNLTranslator, boolean parallel, int direction,
+											Codec codec, boolean mapped) throws IOException{
+
+		codec.reset();
+
+		try(ChunkSource reader = mapped ? new MappedReader(input, CHUNK_SIZE) : new ChunkReader(input, CHUNK_SIZE);
+			 ChunkWriter writer = new ChunkWriter(output, CHUNK_SIZE)){
+
+			CharSequence chunk = reader.read();
+			boolean converted = true;
+
+			if(chunk != null){
+				// AWD files are classified from their bytes, which AWDClassifier caches for each file
+				CodecStage stage;
+				if(direction == DETECT)
+					direction = (ASCII_COMPATIBLE && codec instanceof AwdCodec ? AWDClassifier.isAwd(input) :
+									 codec.isEncoded(chunk)) ? TO_ENG : TO_AWD;
+				if(direction == TO_ENG)
+					stage = new DecodeStage(useNLTranslator, parallel, codec);
+				else
+					stage = new EncodeStage(useNLTranslator, parallel, codec);
+
+				while(chunk != null && converted){
+					converted = stage.process(chunk, writer);
+					chunk = reader.read();
+				}
+
+				if(converted)
+					converted = stage.finish(writer);
+			}
+
+			writer.append(LINE_SEPARATOR);
+			return converted;
+		}
+	}
+
+	/**
+	* Converts the input file through the stage, e.g. a Pipeline built for one direction, and writes the
+	* result to the output file. The file is read a chunk at a time the same way as by the other convert(..)
+	* methods, the stage is finished once the whole file has been read, and a line separator ends the output
+	* file like it ends the files the other convert(..) methods write
+	*
+	*@param input The file to be converted
+	*@param output The file to write the result to
+	*@param stage The stage that converts the file, which must not have been used yet
+	*@return boolean True if the whole file was converted, false if the conversion had to stop early
+	*@throws IOException If the input file cannot be read or the output file cannot be written
+	*/
+	public static boolean convert(File input, File output, Transform.Stage stage) throws IOException{
+		try(ChunkSource reader = input.length() >= MAP_THRESHOLD ? new MappedReader(input, CHUNK_SIZE) :
+																					new ChunkReader(input, CHUNK_SIZE);
+			 ChunkWriter writer = new ChunkWriter(output, CHUNK_SIZE)){
+
+			boolean converted = true;
+			CharSequence chunk = reader.read();
+			while(chunk != null && converted){
+				converted = stage.process(chunk, writer);
+				chunk = reader.read();
+			}
+
+			if(converted)
+				converted = stage.finish(writer);
+
+			writer.append(LINE_SEPARATOR);
+			return converted;
+		}
+	}
+
+	/**
+	* Prints the contents of the file, one chunk at a time
+	*
+	*@param file The file to print
+	*@param out The stream to print to
+	*@throws IOException If the file cannot be read
+	*/
+	public static void print(File file, PrintStream out) throws IOException{
+		try(ChunkReader reader = new ChunkReader(file, CHUNK_SIZE)){
+			CharBuffer chunk = reader.read();
+			while(chunk != null){
+				out.append(chunk);
+				chunk = reader.read();
+			}
+			out.flush();
+		}
+	}
+
+	/**
+	* Determines whether every ASCII character is written in the charset as one byte of the same value, so
+	* that ASCII text can be copied between chars and bytes without the charset's decoder or encoder
+	*
+	*@param charset The charset of the files
+	*@return boolean True if the charset is ASCII compatible, false otherwise
+	*/
+	private static boolean isAsciiCompatible(Charset charset){
+		return charset.equals(StandardCharsets.US_ASCII) || charset.equals(StandardCharsets.UTF_8)
+				 || charset.equals(StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	* ChunkSource Private Interface
+	*
+	* Reader stage, which hands the characters of a file to the codec stage one chunk at a time
+	*
+	*/
+	private interface ChunkSource extends Closeable{
+
+		/**
+		* Reads the next chunk of characters. The chunk returned may be reused by the next call
+		*
+		*@return CharSequence The next chunk of characters, or null if the whole file has been read
+		*@throws IOException If the file cannot be read
+		*/
+		CharSequence read() throws IOException;
+	}
+
+	/**
+	* ChunkReader Private Class
+	*
+	* Reader stage. Reads bytes from a FileChannel into a direct buffer and decodes them into a reusable
+	* CharBuffer, one chunk at a time
+	*
+	*/
+	private static class ChunkReader implements ChunkSource{
+
+		private final FileChannel channel;
+		private final CharsetDecoder decoder;
+		private final ByteBuffer bytes;
+		private final CharBuffer chars;
+		private boolean endOfInput = false;
+		private boolean finished = false;
+
+		/**
+		* Opens the file for reading
+		*
+		*@param file The file to read
+		*@param chunkSize The number of bytes to read at a time
+		*@throws IOException If the file cannot be opened
+		*/
+		public ChunkReader(File file, int chunkSize) throws IOException{
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			decoder = Charset.defaultCharset().newDecoder()
+									.onMalformedInput(CodingErrorAction.REPLACE)
+									.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			bytes = ByteBuffer.allocateDirect(chunkSize);
+			chars = CharBuffer.allocate(chunkSize);
+		}
+
+		/**
+		* Reads the next chunk of characters. The CharBuffer returned is reused by the next call
+		*
+		*@return CharBuffer The next chunk of characters, or null if the whole file has been read
+		*@throws IOException If the file cannot be read
+		*/
+		public CharBuffer read() throws IOException{
+			chars.clear();
+
+			while(chars.position() == 0 && !finished){
+				if(!endOfInput && channel.read(bytes) < 0)
+					endOfInput = true;
+
+				bytes.flip();
+				CoderResult coderResult = decoder.decode(bytes, chars, endOfInput);
+				bytes.compact();
+
+				if(endOfInput && !coderResult.isOverflow()){
+					decoder.flush(chars);
+					finished = true;
+				}
+			}
+
+			chars.flip();
+
+			if(!chars.hasRemaining())
+				return null;
+
+			return chars;
+		}
+
+		/**
+		* Closes the file
+		*
+		*@throws IOException If the file cannot be closed
+		*/
+		public void close() throws IOException{
+			channel.close();
+		}
+	}
+
+	/**
+	* MappedReader Private Class
+	*
+	* Reader stage for large files. Maps the file into memory MAP_SIZE bytes at a time, so that its bytes
+	* are read straight from the page cache. A chunk that is all ASCII is handed on as an AsciiChunk, a view
+	* of the mapped bytes, so it is neither copied nor decoded; any other chunk is decoded into a reusable
+	* CharBuffer
+	*
+	*/
+	private static class MappedReader implements ChunkSource{
+
+		private final FileChannel channel;
+		private final long size;
+		private final int chunkSize;
+		private final CharsetDecoder decoder;
+		private final CharBuffer chars;
+		private final AsciiChunk asciiChunk = new AsciiChunk();
+
+		private MappedByteBuffer region;	// The part of the file mapped at the moment
+		private long regionStart = 0;		// Position of the region in the file
+		private long position = 0;			// Position in the file of the next byte to read
+		private boolean finished = false;
+
+		/**
+		* Opens the file for mapping
+		*
+		*@param file The file to read
+		*@param chunkSize The largest number of bytes handed on at a time
+		*@throws IOException If the file cannot be opened
+		*/
+		public MappedReader(File file, int chunkSize) throws IOException{
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			size = channel.size();
+			this.chunkSize = chunkSize;
+			decoder = Charset.defaultCharset().newDecoder()
+									.onMalformedInput(CodingErrorAction.REPLACE)
+									.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			chars = CharBuffer.allocate(chunkSize);
+		}
+
+		/**
+		* Reads the next chunk of characters. The chunk returned is reused by the next call
+		*
+		*@return CharSequence The next chunk of characters, or null if the whole file has been read
+		*@throws IOException If the file cannot be mapped
+		*/
+		public CharSequence read() throws IOException{
+			chars.clear();
+
+			while(!finished){
+				if(position == size && chars.position() == 0){
+					finished = true;
+					break;
+				}
+
+				// Map the next region once less than a chunk of the current one is left
+				long regionEnd = region == null ? 0 : regionStart + region.capacity();
+				if(regionEnd - position < chunkSize && regionEnd < size){
+					regionStart = position;
+					region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart,
+												Math.min(MAP_SIZE, size - regionStart));
+					regionEnd = regionStart + region.capacity();
+				}
+
+				int offset = (int)(position - regionStart);
+				int length = (int)Math.min(chunkSize, regionEnd - position);
+
+				if(ASCII_COMPATIBLE && isAscii(offset, length)){
+					position += length;
+					return asciiChunk.wrap(region, offset, length);
+				}
+
+				ByteBuffer bytes = region.duplicate();
+				bytes.position(offset).limit(offset + length);
+				boolean endOfInput = position + length == size;
+
+				CoderResult coderResult = decoder.decode(bytes, chars, endOfInput);
+				position = regionStart + bytes.position();
+
+				if(endOfInput && !coderResult.isOverflow()){
+					decoder.flush(chars);
+					finished = true;
+				}
+
+				if(chars.position() != 0)
+					break;
+			}
+
+			chars.flip();
+
+			if(!chars.hasRemaining())
+				return null;
+
+			return chars;
+		}
+
+		/**
+		* Determines whether the bytes of the region are all ASCII, eight at a time
+		*
+		*@param offset Where the bytes start in the region
+		*@param length The number of bytes
+		*@return boolean True if every byte is below 0x80, false otherwise
+		*/
+		private boolean isAscii(int offset, int length){
+			int i = 0;
+			for(; i + 8 <= length; i += 8)
+				if((region.getLong(offset + i) & 0x8080808080808080L) != 0)
+					return false;
+			for(; i < length; i++)
+				if(region.get(offset + i) < 0)
+					return false;
+			return true;
+		}
+
+		/**
+		* Closes the file. The mapped regions are released once they are no longer used
+		*
+		*@throws IOException If the file cannot be closed
+		*/
+		public void close() throws IOException{
+			channel.close();
+		}
+	}
+
+	/**
+	* AsciiChunk Private Class
+	*
+	* Characters that are read straight from ASCII bytes, one byte per character, without copying them
+	*
+	*/
+	private static class AsciiChunk implements CharSequence{
+
+		private ByteBuffer bytes;
+		private int offset;
+		private int length;
+
+		/**
+		* Points the chunk at some ASCII bytes
+		*
+		*@param bytes The buffer holding the bytes
+		*@param offset Where the bytes start in the buffer
+		*@param length The number of bytes
+		*@return AsciiChunk This chunk
+		*/
+		public AsciiChunk wrap(ByteBuffer bytes, int offset, int length){
+			this.bytes = bytes;
+			this.offset = offset;
+			this.length = length;
+			return this;
+		}
+
+		public int length(){
+			return length;
+		}
+
+		public char charAt(int index){
+			return (char)bytes.get(offset + Objects.checkIndex(index, length));
+		}
+
+		public CharSequence subSequence(int start, int end){
+			Objects.checkFromToIndex(start, end, length);
+			return new AsciiChunk().wrap(bytes, offset + start, end - start);
+		}
+
+		public String toString(){
+			byte[] ascii = new byte[length];
+			bytes.get(offset, ascii);
+			return new String(ascii, StandardCharsets.US_ASCII);
+		}
+	}
+
+	/**
+	* ChunkWriter Private Class
+	*
+	* Writer stage. Buffers appended characters and writes them to a FileChannel through a direct buffer
+	* whenever the buffer fills up. ASCII characters are put into the direct buffer as they are, while any
+	* others go through the charset's encoder
+	*
+	*/
+	private static class ChunkWriter implements Appendable, Closeable{
+
+		private final FileChannel channel;
+		private final CharsetEncoder encoder;
+		private final CharBuffer chars;	// Characters waiting for the encoder
+		private final ByteBuffer bytes;
+
+		/**
+		* Creates (or truncates) the file for writing
+		*
+		*@param file The file to write
+		*@param chunkSize The number of characters to buffer before writing
+		*@throws IOException If the file cannot be opened
+		*/
+		public ChunkWriter(File file, int chunkSize) throws IOException{
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+												StandardOpenOption.TRUNCATE_EXISTING);
+			encoder = Charset.defaultCharset().newEncoder()
+									.onMalformedInput(CodingErrorAction.REPLACE)
+									.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			chars = CharBuffer.allocate(chunkSize);
+			bytes = ByteBuffer.allocateDirect(chunkSize);
+		}
+
+		public Appendable append(char c) throws IOException{
+			if(!chars.hasRemaining())
+				drain(false);
+			chars.put(c);
+			return this;
+		}
+
+		public Appendable append(CharSequence csq) throws IOException{
+			return append(csq, 0, csq.length());
+		}
+
+		public Appendable append(CharSequence csq, int start, int end) throws IOException{
+			int i = start;
+
+			// Nothing may be waiting for the encoder, or the bytes would be written out of order
+			if(ASCII_COMPATIBLE && chars.position() == 0){
+				for(; i < end; i++){
+					char c = csq.charAt(i);
+					if(c >= 0x80)
+						break;
+					if(!bytes.hasRemaining())
+						writeBytes();
+					bytes.put((byte)c);
+				}
+			}
+
+			for(; i < end; i++)
+				append(csq.charAt(i));
+
+			if(chars.position() != 0)
+				drain(false);
+			return this;
+		}
+
+		/**
+		* Encodes the buffered characters, writing to the file whenever the direct buffer fills up
+		*
+		*@param endOfInput True if no more characters will be appended
+		*@throws IOException If the file cannot be written
+		*/
+		private void drain(boolean endOfInput) throws IOException{
+			chars.flip();
+			CoderResult coderResult = encoder.encode(chars, bytes, endOfInput);
+			while(coderResult.isOverflow()){
+				writeBytes();
+				coderResult = encoder.encode(chars, bytes, endOfInput);
+			}
+			chars.compact();
+		}
+
+		/**
+		* Writes the encoded bytes to the file
+		*
+		*@throws IOException If the file cannot be written
+		*/
+		private void writeBytes() throws IOException{
+			bytes.flip();
+			while(bytes.hasRemaining())
+				channel.write(bytes);
+			bytes.clear();
+		}
+
+		/**
+		* Writes whatever is still buffered and closes the file
+		*
+		*@throws IOException If the file cannot be written or closed
+		*/
+		public void close() throws IOException{
+			try{
+				drain(true);
+				encoder.flush(bytes);
+				writeBytes();
+			}finally{
+				channel.close();
+			}
+		}
+	}
+
+	/**
+	* CodecStage Private Class
+	*
+	* Codec stage. Converts each chunk handed to it by the reader stage and appends the result to the
+	* writer stage. Any state needed by the next chunk is kept between calls
+	*
+	*/
+	private static abstract class CodecStage{
+
+		/**
+		* Converts the chunk
+		*
+		*@param chunk The characters to convert
+		*@param out Where the converted characters are appended
+		*@return boolean True if the chunk was converted, false if the conversion has to stop
+		*@throws IOException If the converted characters cannot be appended
+		*/
+		public abstract boolean process(CharSequence chunk, Appendable out) throws IOException;
+
+		/**
+		* Converts whatever is left over once the last chunk has been processed
+		*
+		*@param out Where the converted characters are appended
+		*@return boolean True if the conversion finished, false otherwise
+		*@throws IOException If the converted characters cannot be appended
+		*/
+		public abstract boolean finish(Appendable out) throws IOException;
+	}
+
+	/**
+	* EncodeStage Private Class
+	*
+	* Converts English to AWD. When the NonLetterTranslator is used, each line is translated to alpha text
+	* before it is encoded, the same way convertUsingFile() in AWD does it. With an AwdCodec the two are done
+	* in one pass by a NltTransform.FusedEncodeStage, which encodes each letter as the NonLetterTranslator
+	* makes it, so neither the line nor its alpha text is collected. When encoding in parallel, the text is
+	* collected until PARALLEL_WINDOW characters are ready
+	*
+	*/
+	private static class EncodeStage extends CodecStage{
+
+		private final boolean useNLTranslator;
+		private final boolean parallel;
+		private final StringBuilder line = new StringBuilder();	// Part of the line read so far
+		private final StringBuilder alpha = new StringBuilder();	// The line translated by the NLT
+		private final StringBuilder window = new StringBuilder();	// Text waiting to be encoded in parallel
+
+		private final Codec codec;
+		private final AwdCodec parallelCodec;	// The codec when encoding in parallel, null otherwise
+		private final NltTransform.FusedEncodeStage fused;	// Translates and encodes in one pass, or null
+		private boolean inLine = false;		// True if part of a line has been encoded by the fused stage
+		private boolean heldReturn = false;	// True if the last chunk ended in a '\r' not yet encoded
+
+		public EncodeStage(boolean useNLTranslator, boolean parallel, Codec codec){
+			this.useNLTranslator = useNLTranslator;
+			this.codec = codec;
+			parallelCodec = parallel && codec instanceof AwdCodec ? (AwdCodec)codec : null;
+			this.parallel = parallelCodec != null;
+			fused = useNLTranslator && !this.parallel && codec instanceof AwdCodec ?
+					  new NltTransform.FusedEncodeStage((AwdCodec)codec) : null;
+		}
+
+		public boolean process(CharSequence chunk, Appendable out) throws IOException{
+			if(!useNLTranslator)
+				return encode(chunk, out);
+			if(fused != null)
+				return encodeLines(chunk, out);
+
+			for(int i = 0; i < chunk.length(); i++){
+				char ch = chunk.charAt(i);
+				if(ch == '\n'){
+					if(line.length() != 0 && line.charAt(line.length() - 1) == '\r')
+						line.setLength(line.length() - 1);
+					if(!encodeLine(out))
+						return false;
+				}else{
+					line.append(ch);
+				}
+			}
+
+			return true;
+		}
+
+		public boolean finish(Appendable out) throws IOException{
+			if(fused != null){
+				if(heldReturn && !fused.translate("\r", out))
+					return false;
+				return !(inLine || heldReturn) || fused.translate(LINE_SEPARATOR, out);
+			}
+
+			if(useNLTranslator && line.length() != 0 && !encodeLine(out))
+				return false;
+
+			if(window.length() != 0){
+				boolean encoded = AWDParallel.encode(window, parallelCodec, out);
+				window.setLength(0);
+				return encoded;
+			}
+
+			return true;
+		}
+
+		/**
+		* Encodes the text right away, or collects it when encoding in parallel and encodes the collected
+		* text once there is enough of it
+		*
+		*@param text The English letters to convert
+		*@param out Where the AWD numbers are appended
+		*@return boolean True if the text was converted, false otherwise
+		*@throws IOException If the AWD numbers cannot be appended
+		*/
+		private boolean encode(CharSequence text, Appendable out) throws IOException{
+			if(!parallel)
+				return codec.encode(text, out);
+
+			window.append(text);
+			if(window.length() < PARALLEL_WINDOW)
+				return true;
+
+			boolean encoded = AWDParallel.encode(window, parallelCodec, out);
+			window.setLength(0);
+			return encoded;
+		}
+
+		/**
+		* Translates the chunk with the NonLetterTranslator and encodes it in one pass. Each "\n" or "\r\n"
+		* becomes the line separator, and the '\r' a chunk ends in is held back until the next chunk shows
+		* whether a '\n' follows it
+		*
+		*@param chunk The English text to convert
+		*@param out Where the AWD numbers are appended
+		*@return boolean True if the chunk was encoded, false otherwise
+		*@throws IOException If the AWD numbers cannot be appended
+		*/
+		private boolean encodeLines(CharSequence chunk, Appendable out) throws IOException{
+			int length = chunk.length();
+			if(length == 0)
+				return true;
+
+			int start = 0;
+			if(heldReturn){
+				heldReturn = false;
+				if(chunk.charAt(0) != '\n'){
+					inLine = true;
+					if(!fused.translate("\r", out))
+						return false;
+				}
+			}
+
+			for(int i = 0; i < length; i++){
+				if(chunk.charAt(i) != '\n')
+					continue;
+
+				int end = i;
+				if(end > start && chunk.charAt(end - 1) == '\r')
+					--end;
+				if(end > start && !fused.translate(CharBuffer.wrap(chunk, start, end), out))
+					return false;
+				if(!fused.translate(LINE_SEPARATOR, out))
+					return false;
+
+				inLine = false;
+				start = i + 1;
+			}
+
+			int end = length;
+			if(end > start && chunk.charAt(end - 1) == '\r'){
+				--end;
+				heldReturn = true;
+			}
+			if(end > start){
+				inLine = true;
+				return fused.translate(CharBuffer.wrap(chunk, start, end), out);
+			}
+			return true;
+		}
+
+		/**
+		* Translates the line read so far with the NonLetterTranslator and encodes it. The line is always
+		* translated to alpha text with toAlpha(..): translate(..) would read a line of letters that happens to
+		* hold an OC pair as alpha text already, and translate it back instead. The PAS and OCs are picked with
+		* the codec's generator, so a seeded codec decides the whole output
+		*
+		*@param out Where the AWD numbers are appended
+		*@return boolean True if the line was encoded, false otherwise
+		*@throws IOException If the AWD numbers cannot be appended
+		*/
+		private boolean encodeLine(Appendable out) throws IOException{
+			NonLetterTranslator.toAlpha(line, alpha, codec.getRandom());
+			NonLetterTranslator.toAlpha(LINE_SEPARATOR, alpha, codec.getRandom());
+			line.setLength(0);
+
+			boolean encoded = encode(alpha, out);
+			alpha.setLength(0);
+			return encoded;
+		}
+	}
+
+	/**
+	* DecodeStage Private Class
+	*
+	* Converts AWD to English. When the NonLetterTranslator is used, the English letters are held back
+	* until they make up whole PAS and text OC sequences, and are then translated NLT_PIECE_SIZE
+	* characters at a time. When decoding in parallel, the numbers are collected until PARALLEL_WINDOW
+	* characters are ready
+	*
+	*/
+	private static class DecodeStage extends CodecStage{
+
+		private final boolean useNLTranslator;
+		private final boolean parallel;
+		private final StringBuilder alpha = new StringBuilder();	// Letters not yet translated by the NLT
+		private final StringBuilder window = new StringBuilder();	// Numbers waiting to be decoded in parallel
+
+		private final Codec codec;
+		private final AwdCodec parallelCodec;	// The codec when decoding in parallel, null otherwise
+
+		public DecodeStage(boolean useNLTranslator, boolean parallel, Codec codec){
+			this.useNLTranslator = useNLTranslator;
+			this.codec = codec;
+			parallelCodec = parallel && codec instanceof AwdCodec ? (AwdCodec)codec : null;
+			this.parallel = parallelCodec != null;
+		}
+
+		public boolean process(CharSequence chunk, Appendable out) throws IOException{
+			if(!parallel)
+				return decode(chunk, out);
+
+			window.append(chunk);
+			if(window.length() < PARALLEL_WINDOW)
+				return true;
+
+			return decodeWindow(out);
+		}
+
+		public boolean finish(Appendable out) throws IOException{
+			if(window.length() != 0 && !decodeWindow(out))
+				return false;
+
+			if(useNLTranslator && alpha.length() != 0){
+				boolean translated = translatePiece(0, alpha.length(), out);
+				alpha.setLength(0);
+				return translated;
+			}
+			return true;
+		}
+
+		/**
+		* Decodes the numbers collected so far on every core
+		*
+		*@param out Where the English letters are appended
+		*@return boolean True if the numbers were converted, false otherwise
+		*@throws IOException If the English letters cannot be appended
+		*/
+		private boolean decodeWindow(Appendable out) throws IOException{
+			boolean decoded;
+			if(useNLTranslator)
+				decoded = AWDParallel.decode(window, parallelCodec, alpha);
+			else
+				decoded = AWDParallel.decode(window, parallelCodec, out);
+			window.setLength(0);
+
+			if(useNLTranslator && !translateAlpha(out))
+				return false;
+			return decoded;
+		}
+
+		/**
+		* Decodes the numbers right away, translating the letters with the NonLetterTranslator if needed
+		*
+		*@param text The AWD numbers to convert
+		*@param out Where the English letters are appended
+		*@return boolean True if the numbers were converted, false otherwise
+		*@throws IOException If the English letters cannot be appended
+		*/
+		private boolean decode(CharSequence text, Appendable out) throws IOException{
+			if(!useNLTranslator)
+				return decodeChunk(text, out);
+
+			boolean decoded = decodeChunk(text, alpha);
+			return translateAlpha(out) && decoded;
+		}
+
+		/**
+		* Decodes the numbers with the codec. Numbers read straight from mapped ASCII bytes are decoded from
+		* the bytes by an AwdCodec, eight at a time
+		*
+		*@param text The AWD numbers to convert
+		*@param out Where the English letters are appended
+		*@return boolean True if the numbers were converted, false otherwise
+		*@throws IOException If the English letters cannot be appended
+		*/
+		private boolean decodeChunk(CharSequence text, Appendable out) throws IOException{
+			if(text instanceof AsciiChunk && codec instanceof AwdCodec){
+				AsciiChunk chunk = (AsciiChunk)text;
+				return ((AwdCodec)codec).decode(chunk.bytes, chunk.offset, chunk.length, out);
+			}
+			return codec.decode(text, out);
+		}
+
+		/**
+		* Translates the letters held back that make up whole PAS and text OC sequences, and keeps the rest
+		*
+		*@param out Where the translated text is appended
+		*@return boolean True if the letters were translated, false if they had a sequence that couldn't be read
+		*@throws IOException If the translated text cannot be appended
+		*/
+		private boolean translateAlpha(Appendable out) throws IOException{
+			int start = 0;
+			int length = NonLetterTranslator.getCompleteLength(alpha, start, NLT_PIECE_SIZE);
+			while(length > 0){
+				if(!translatePiece(start, length, out))
+					return false;
+				start += length;
+				length = NonLetterTranslator.getCompleteLength(alpha, start, NLT_PIECE_SIZE);
+			}
+			alpha.delete(0, start);
+			return true;
+		}
+
+		/**
+		* Translates a piece of the letters back to nonletter text with the NonLetterTranslator
+		*
+		*@param start The index of the first letter of the piece
+		*@param length The number of letters in the piece
+		*@param out Where the nonletter text is appended
+		*@return boolean True if the piece was translated, false if it had a sequence that couldn't be read
+		*@throws IOException If the nonletter text cannot be appended
+		*/
+		private boolean translatePiece(int start, int length, Appendable out) throws IOException{
+			if(NonLetterTranslator.toNonLetter(alpha.subSequence(start, start + length), out))
+				return true;
+
+			System.out.println(NonLetterTranslator.UNRECOGNIZED_PAS);
+			return false;
+		}
+	}
+}
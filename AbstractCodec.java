@@ -0,0 +1,220 @@
+/**
+* AbstractCodec.java (AWD 1.0) by Peter Olson
+*
+* The part of a Codec that doesn't depend on the cipher: the RandomGenerator making the random choices,
+* the reusable char buffer the output is collected in, and the reason a conversion stopped. AwdCodec and
+* IslandCodec extend it, and only convert the letters themselves.
+*
+* When a conversion stops at a character that can't be converted, the reason is printed, as the command
+* line and the interactive prompt expect. A quiet codec only keeps the reason, for getStopReason(), so that
+* a server can send it back to its client instead.
+*
+* Random choices are made by the codec's own RandomGenerator (see AWDRandom). A codec made from a seed
+* goes back to the seed whenever it is reset, so it encodes the same text the same way every time.
+*
+* *********** PUBLIC GLOBAL VARIABLES *********************************************
+*
+* static final int BUFFER_SIZE = 4096				--> Number of characters collected before they are appended
+*
+* *********** CONSTRUCTORS ********************************************************
+*
+* AbstractCodec()				--> Creates a codec with its own random number generator, started from
+*										 the awd.seed system property if it is set
+*
+* AbstractCodec( long seed )	--> Creates a codec whose random choices are decided by the seed
+*
+* AbstractCodec( RandomGenerator random )
+*									--> Creates a codec that makes its random choices with the generator
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* void reset()											--> Goes back to the seed if the codec has one, and empties
+*																	 the buffer and the stop reason; subclasses also forget
+*																	 their own state
+*
+* RandomGenerator getRandom()						--> Gets the generator making the random choices
+*
+* void setRandom( RandomGenerator random )		--> Sets the generator making the random choices, until the
+*																	 next reset() of a seeded codec
+*
+* RandomGenerator splitRandom()						--> Creates a generator for another codec working on a piece
+*																	 of the same text
+*
+* void setQuiet( boolean quiet )					--> Sets whether the reason a conversion stopped is kept
+*																	 without being printed
+*
+* String getStopReason()								--> Gets why the conversion stopped, null if it hasn't
+*
+* *********** PROTECTED METHODS ***************************************************
+*
+* void put( char ch, Appendable out )				--> Adds a character to the output buffer, flushing it
+*																	 when full
+*
+* void flush( Appendable out )						--> Appends the buffered characters to the destination
+*
+* boolean stop( String reason )						--> Keeps, and unless quiet prints, why the conversion
+*																	 stopped; returns false
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+public abstract class AbstractCodec implements Codec{
+
+	public static final int BUFFER_SIZE = 4096;	// Number of characters collected before they are appended
+
+	protected RandomGenerator random;
+	private final boolean seeded;	// True if reset() goes back to the seed
+	private final long seed;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private final CharBuffer bufferView = CharBuffer.wrap(buffer);
+	private int count = 0;										// Number of characters in the buffer
+	private boolean quiet = false;							// True if stop(..) doesn't print the reason
+	private String stopReason = null;						// Why the conversion stopped, null if it hasn't
+
+	/**
+	* Creates a codec with its own random number generator. If the awd.seed system property is set, the
+	* codec is seeded with it
+	*
+	*/
+	protected AbstractCodec(){
+		seeded = AWDRandom.isSeeded();
+		seed = seeded ? AWDRandom.getSeed() : 0;
+		random = AWDRandom.newGenerator();
+	}
+
+	/**
+	* Creates a codec whose random choices are decided by the seed, so that it encodes a text the same way
+	* every time it is reset
+	*
+	*@param seed The seed
+	*/
+	protected AbstractCodec(long seed){
+		seeded = true;
+		this.seed = seed;
+		random = new SplittableRandom(seed);
+	}
+
+	/**
+	* Creates a codec that makes its random choices with the generator, which must not be used by another
+	* thread at the same time
+	*
+	*@param random The generator
+	*/
+	protected AbstractCodec(RandomGenerator random){
+		seeded = false;
+		seed = 0;
+		this.random = random;
+	}
+
+	/**
+	* Starts the random choices over from the seed if the codec has one, and empties the buffer and the
+	* stop reason. Subclasses forget the state of both directions as well, and call this first
+	*
+	*/
+	public void reset(){
+		if(seeded)
+			random = new SplittableRandom(seed);
+		count = 0;
+		stopReason = null;
+	}
+
+	/**
+	* Gets the generator making the random choices, which is also used for the NonLetterTranslator when a
+	* file is converted, so that one seed decides the whole output
+	*
+	*@return RandomGenerator The generator
+	*/
+	public RandomGenerator getRandom(){
+		return random;
+	}
+
+	/**
+	* Sets the generator making the random choices. A seeded codec goes back to its seed at the next reset()
+	*
+	*@param random The generator, which must not be used by another thread at the same time
+	*/
+	public void setRandom(RandomGenerator random){
+		this.random = random;
+	}
+
+	/**
+	* Creates a generator for another codec working on a piece of the same text. Its numbers are independent
+	* of this codec's, but decided by them, so a seeded text split into pieces is still encoded the same
+	* way every time
+	*
+	*@return RandomGenerator The new generator
+	*/
+	public RandomGenerator splitRandom(){
+		return AWDRandom.split(random);
+	}
+
+	/**
+	* Sets whether the reason a conversion stopped is only kept for getStopReason(), or printed as well
+	*
+	*@param quiet True to keep the reason without printing it, false to print it
+	*/
+	public void setQuiet(boolean quiet){
+		this.quiet = quiet;
+	}
+
+	/**
+	* Gets why the conversion stopped, such as the character that could not be converted
+	*
+	*@return String The reason, or null if the codec hasn't stopped since it was last reset
+	*/
+	public String getStopReason(){
+		return stopReason;
+	}
+
+	/**
+	* Adds a character to the output buffer, appending the buffer to the destination when it is full
+	*
+	*@param ch The character to add
+	*@param out Where the buffer is appended when full
+	*@throws IOException If the buffer cannot be appended
+	*/
+	protected final void put(char ch, Appendable out) throws IOException{
+		if(count == buffer.length)
+			flush(out);
+		buffer[count++] = ch;
+	}
+
+	/**
+	* Appends the buffered characters to the destination and empties the buffer
+	*
+	*@param out Where the buffer is appended
+	*@throws IOException If the buffer cannot be appended
+	*/
+	protected final void flush(Appendable out) throws IOException{
+		if(count == 0)
+			return;
+
+		if(out instanceof StringBuilder)
+			((StringBuilder)out).append(buffer, 0, count);
+		else
+			out.append(bufferView, 0, count);
+
+		count = 0;
+	}
+
+	/**
+	* Keeps the reason the conversion stopped, and prints it unless the codec is quiet
+	*
+	*@param reason Why the conversion stopped
+	*@return boolean False, for encode(..) and decode(..) to return
+	*/
+	protected final boolean stop(String reason){
+		stopReason = reason;
+		if(!quiet)
+			System.out.println(reason);
+		return false;
+	}
+}
@@ -0,0 +1,582 @@
+/**
+* AwdCodec.java (AWD 1.0) by Peter Olson
+*
+* Reusable engine that converts between English and AWD without creating objects per letter. Segments
+* are held as 7-bit masks (see AWD.LETTER_MASKS), so the change between two letters is a single XOR and
+* a letter is looked up directly by its mask. The output is collected in the reusable char buffer of
+* AbstractCodec before being appended to the destination.
+*
+* The clockBits state of both directions is kept between calls, so a long text can be handed to the codec
+* in pieces. Use reset() before starting on a new text.
+*
+* Random choices are made by the codec's own RandomGenerator (see AbstractCodec). A codec made from a seed
+* goes back to the seed whenever it is reset, so it encodes the same text the same way every time.
+*
+* AwdCodec is the Codec for AWD; IslandCodec is the one for Island. Both extend AbstractCodec.
+*
+* *********** CONSTRUCTORS ********************************************************
+*
+* AwdCodec()						--> Creates a codec with its own random number generator, started from
+*										 the awd.seed system property if it is set
+*
+* AwdCodec( long seed )			--> Creates a codec whose random choices are decided by the seed
+*
+* AwdCodec( RandomGenerator random )
+*									--> Creates a codec that makes its random choices with the generator
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* boolean encode( CharSequence text, Appendable out )
+*																--> Converts English letters to AWD and appends them
+*
+* boolean decode( CharSequence text, Appendable out )
+*																--> Converts AWD numbers to English and appends them
+*
+* boolean decode( ByteBuffer bytes, int offset, int length, Appendable out )
+*																--> Converts AWD numbers held as ASCII bytes to English,
+*																	 eight bytes at a time
+*
+* boolean encodeLetter( char ch, Appendable out )
+*																--> Converts one English letter to AWD, keeping the numbers
+*																	 in the buffer
+*
+* void flushEncoded( Appendable out )				--> Appends the numbers encodeLetter(..) left in the buffer
+*
+* void reset()											--> Forgets the state of both directions and the stop
+*																	 reason, and goes back to the seed if the codec has one
+*
+* boolean isEncoded( CharSequence chunk )			--> Determines whether the start of a text is AWD
+*
+* void setEncodeState( int letterBits, char endNum )
+*																--> Sets the encoding state, to start encoding partway
+*																	 through a text
+*
+* int getEncodeBits()									--> Gets the segment mask of the last letter encoded
+*
+* char getLastNum()										--> Gets the last end number written
+*
+* void setDecodeState( int clockBits )			--> Sets the decoding state, to start decoding partway
+*																	 through a text at the start of a letter
+*
+* void copyDecodeState( AwdCodec other )		--> Sets the decoding state to that of the other codec
+*
+* int getDecodeBits()									--> Gets the clockBits read so far
+*
+* *********** PRIVATE METHODS *****************************************************
+*
+* boolean encodeText( CharSequence text, Appendable out )
+*																--> Does the work of encode(..), which times it when
+*																	 AWDMetrics are on
+*
+* boolean decodeText( CharSequence text, Appendable out )
+*																--> Does the work of decode(..), which times it when
+*																	 AWDMetrics are on
+*
+* boolean encodeNext( char ch, Appendable out )
+*																--> Converts one English letter to AWD; used by
+*																	 encodeText(..) and encodeLetter(..)
+*
+* boolean decodeBytes( ByteBuffer bytes, int offset, int length, Appendable out )
+*																--> Does the work of decode(ByteBuffer, ..)
+*
+* boolean decodeNumber( char ch, Appendable out )
+*																--> Reads one character of AWD; used by decodeText(..) and
+*																	 decodeBytes(..)
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.random.RandomGenerator;
+
+public class AwdCodec extends AbstractCodec{
+
+	// Added to each of eight ASCII bytes in a long, these set the high bit of the bytes that are at least
+	// '0', '1' or '8', or above '9'. No byte below 0x80 carries into the next one
+	private static final long ONES = 0x0101010101010101L;
+	private static final long HIGH_BITS = 0x8080808080808080L;
+	private static final long AT_LEAST_ZERO = (0x80 - '0') * ONES;
+	private static final long AT_LEAST_ONE = (0x80 - '1') * ONES;
+	private static final long AT_LEAST_EIGHT = (0x80 - '8') * ONES;
+	private static final long ABOVE_NINE = (0x7F - '9') * ONES;
+
+	// Encoding state
+	private int encodeBits = 0;	// The clockBits of the last letter encoded
+	private char lastNum = 0;		// The last number written
+
+	// Decoding state
+	private int decodeBits = 0;		// The clockBits read so far
+	private boolean inLetter = false;	// True if numbers of the current letter have been read
+	private char endNum = 0;			// The last end number read, used to find repeated letters
+	private char letter = 0;			// The last letter decoded
+
+	// Counts of the current call, kept only when AWDMetrics.ENABLED
+	private int metricLetters = 0;
+	private final long[] metricSeparators = new long[10];	// Indexed by digit
+	private int metricCharacters = 0;	// Characters handed to encodeLetter(..) since the last flushEncoded(..)
+	private long metricStart = 0;		// System.nanoTime() at the first of them
+
+	/**
+	* Creates a codec with its own random number generator. If the awd.seed system property is set, the
+	* codec is seeded with it
+	*
+	*/
+	public AwdCodec(){
+		super();
+	}
+
+	/**
+	* Creates a codec whose random choices are decided by the seed, so that it encodes a text the same way
+	* every time it is reset
+	*
+	*@param seed The seed
+	*/
+	public AwdCodec(long seed){
+		super(seed);
+	}
+
+	/**
+	* Creates a codec that makes its random choices with the generator, which must not be used by another
+	* thread at the same time
+	*
+	*@param random The generator
+	*/
+	public AwdCodec(RandomGenerator random){
+		super(random);
+	}
+
+	/**
+	* Converts English letters to AWD, which consists of the numbers 1-7 for the segments that change
+	* between letters, followed by one of the end numbers 0, 8 or 9. Whitespace is skipped, and lowercase
+	* letters are treated as uppercase.
+	*
+	*@param text The English letters to convert
+	*@param out Where the AWD numbers are appended
+	*@return boolean True if the text was converted, false if an unrecognized character was found
+	*@throws IOException If the AWD numbers cannot be appended
+	*/
+	public boolean encode(CharSequence text, Appendable out) throws IOException{
+		if(!AWDMetrics.ENABLED)
+			return encodeText(text, out);
+
+		long start = System.nanoTime();
+		try{
+			return encodeText(text, out);
+		}finally{
+			AWDMetrics.recordEncode(text.length(), metricLetters, System.nanoTime() - start, metricSeparators);
+			metricLetters = 0;
+		}
+	}
+
+	/**
+	* Converts English letters to AWD, see encode(..)
+	*
+	*@param text The English letters to convert
+	*@param out Where the AWD numbers are appended
+	*@return boolean True if the text was converted, false if an unrecognized character was found
+	*@throws IOException If the AWD numbers cannot be appended
+	*/
+	private boolean encodeText(CharSequence text, Appendable out) throws IOException{
+		int length = text.length();
+
+		for(int index = 0; index < length; index++){
+			if(!encodeNext(text.charAt(index), out)){
+				flush(out);
+				return false;
+			}
+		}
+
+		flush(out);
+		return true;
+	}
+
+	/**
+	* Converts one English letter to AWD the same way encode(..) does, for text that is made a letter at a
+	* time, such as the alpha text of the NonLetterTranslator. The AWD numbers are kept in the codec's
+	* buffer until it is full or flushEncoded(..) is called. When AWDMetrics are on, the characters handed
+	* in since the last flushEncoded(..) are counted, and timed from the first of them
+	*
+	*@param ch The letter to convert; whitespace is skipped
+	*@param out Where the buffer is appended when full
+	*@return boolean True if the letter was converted, false if the character is not a letter
+	*@throws IOException If the AWD numbers cannot be appended
+	*/
+	public boolean encodeLetter(char ch, Appendable out) throws IOException{
+		if(AWDMetrics.ENABLED && metricCharacters++ == 0)
+			metricStart = System.nanoTime();
+		return encodeNext(ch, out);
+	}
+
+	/**
+	* Appends the AWD numbers that encodeLetter(..) left in the buffer, and counts the letters towards the
+	* AWDMetrics when they are on
+	*
+	*@param out Where the AWD numbers are appended
+	*@throws IOException If the AWD numbers cannot be appended
+	*/
+	public void flushEncoded(Appendable out) throws IOException{
+		flush(out);
+		if(AWDMetrics.ENABLED && metricCharacters != 0){
+			AWDMetrics.recordEncode(metricCharacters, metricLetters, System.nanoTime() - metricStart, metricSeparators);
+			metricLetters = 0;
+			metricCharacters = 0;
+		}
+	}
+
+	/**
+	* Converts one English letter to AWD, see encode(..)
+	*
+	*@param ch The letter to convert; whitespace is skipped
+	*@param out Where the buffer is appended when full
+	*@return boolean True if the letter was converted, false if the character is not a letter
+	*@throws IOException If the AWD numbers cannot be appended
+	*/
+	private boolean encodeNext(char ch, Appendable out) throws IOException{
+		if(ch <= ' ')
+			return true;
+		if(ch >= 'a' && ch <= 'z')
+			ch -= 'a' - 'A';
+
+		if(ch < 'A' || ch > 'Z'){
+			return stop("Unrecognized character: " + ch + System.lineSeparator() +
+							"Unrecognized character name: " + Character.getName(ch));
+		}
+
+		int current = AWD.LETTER_MASKS[ch - 'A'];
+
+		// If the next letter is the same as the previous one, repeat the last number
+		if(current == encodeBits){
+			put(lastNum, out);
+			if(AWDMetrics.ENABLED){
+				metricLetters++;
+				metricSeparators[lastNum - '0']++;
+			}
+			return true;
+		}
+
+		// Write the changed segments in a random order, picking a random set bit each time
+		int changed = current ^ encodeBits;
+		for(int options = Integer.bitCount(changed); options > 0; options--){
+			int remaining = changed;
+			for(int skip = random.nextInt(options); skip > 0; skip--)
+				remaining &= remaining - 1;	// clear the lowest set bit
+
+			int segment = Integer.numberOfTrailingZeros(remaining);
+			put((char)('1' + segment), out);
+			changed &= ~(1 << segment);
+		}
+
+		encodeBits = current;
+		lastNum = AWD.END_NUMS[random.nextInt(AWD.END_NUMS.length)];
+		put(lastNum, out);
+		if(AWDMetrics.ENABLED){
+			metricLetters++;
+			metricSeparators[lastNum - '0']++;
+		}
+		return true;
+	}
+
+	/**
+	* Converts AWD numbers to English letters. Whitespace is skipped. A letter whose end number hasn't been
+	* read yet is finished by the next call.
+	*
+	*@param text The AWD numbers to convert
+	*@param out Where the English letters are appended
+	*@return boolean True if the text was converted, false if an invalid character was read
+	*@throws IOException If the English letters cannot be appended
+	*/
+	public boolean decode(CharSequence text, Appendable out) throws IOException{
+		if(!AWDMetrics.ENABLED)
+			return decodeText(text, out);
+
+		long start = System.nanoTime();
+		try{
+			return decodeText(text, out);
+		}finally{
+			AWDMetrics.recordDecode(text.length(), metricLetters, System.nanoTime() - start, metricSeparators);
+			metricLetters = 0;
+		}
+	}
+
+	/**
+	* Converts AWD numbers to English letters, see decode(..)
+	*
+	*@param text The AWD numbers to convert
+	*@param out Where the English letters are appended
+	*@return boolean True if the text was converted, false if an invalid character was read
+	*@throws IOException If the English letters cannot be appended
+	*/
+	private boolean decodeText(CharSequence text, Appendable out) throws IOException{
+		int length = text.length();
+
+		for(int index = 0; index < length; index++){
+			if(!decodeNumber(text.charAt(index), out)){
+				flush(out);
+				return false;
+			}
+		}
+
+		flush(out);
+		return true;
+	}
+
+	/**
+	* Converts AWD numbers held as ASCII bytes to English letters, the same way decode(..) does. The bytes
+	* are read eight at a time: one long tells whether all eight are digits, and which of them are segment
+	* numbers, so each byte then takes a single test instead of being checked for whitespace and ranges.
+	* Eight bytes with whitespace or anything that isn't a digit are read one at a time, like decode(..)
+	* reads them. Used by AWDStream for files that are memory-mapped
+	*
+	*@param bytes The buffer holding the AWD numbers
+	*@param offset Where the numbers start in the buffer
+	*@param length The number of bytes
+	*@param out Where the English letters are appended
+	*@return boolean True if the numbers were converted, false if an invalid character was read
+	*@throws IOException If the English letters cannot be appended
+	*/
+	public boolean decode(ByteBuffer bytes, int offset, int length, Appendable out) throws IOException{
+		if(!AWDMetrics.ENABLED)
+			return decodeBytes(bytes, offset, length, out);
+
+		long start = System.nanoTime();
+		try{
+			return decodeBytes(bytes, offset, length, out);
+		}finally{
+			AWDMetrics.recordDecode(length, metricLetters, System.nanoTime() - start, metricSeparators);
+			metricLetters = 0;
+		}
+	}
+
+	/**
+	* Converts AWD numbers held as ASCII bytes to English letters, see decode(ByteBuffer, ..)
+	*
+	*@param bytes The buffer holding the AWD numbers
+	*@param offset Where the numbers start in the buffer
+	*@param length The number of bytes
+	*@param out Where the English letters are appended
+	*@return boolean True if the numbers were converted, false if an invalid character was read
+	*@throws IOException If the English letters cannot be appended
+	*/
+	private boolean decodeBytes(ByteBuffer bytes, int offset, int length, Appendable out) throws IOException{
+		int end = offset + length;
+		int index = offset;
+		boolean swap = bytes.order() != ByteOrder.BIG_ENDIAN;	// keep the first byte in the highest bits
+
+		for(; index + 8 <= end; index += 8){
+			long word = bytes.getLong(index);
+			if(swap)
+				word = Long.reverseBytes(word);
+
+			long digits = (word + AT_LEAST_ZERO) & ~(word + ABOVE_NINE) & ~word & HIGH_BITS;
+
+			// Whitespace, invalid characters and non-ASCII bytes are read one at a time
+			if(digits != HIGH_BITS){
+				for(int k = 0; k < 8; k++){
+					if(!decodeNumber((char)(bytes.get(index + k) & 0xFF), out)){
+						flush(out);
+						return false;
+					}
+				}
+				continue;
+			}
+
+			// All eight are digits, so only the end numbers '0', '8' and '9' need to be told apart from the
+			// segment numbers, which is done for the eight at once
+			long segments = (word + AT_LEAST_ONE) & ~(word + AT_LEAST_EIGHT) & HIGH_BITS;
+			int bits = decodeBits;
+			boolean letterStarted = inLetter;
+			char lastEnd = endNum;
+
+			for(int shift = 56; shift >= 0; shift -= 8){
+				char ch = (char)((word >>> shift) & 0xFF);
+
+				if((segments & (0x80L << shift)) != 0){
+					bits ^= 1 << (ch - '1');	// reverse whatever the bit was at that segment
+					letterStarted = true;
+					lastEnd = 0;
+				}else if(lastEnd == ch){		// the end number is repeated, so is the letter
+					put(letter, out);
+					if(AWDMetrics.ENABLED){
+						metricLetters++;
+						metricSeparators[ch - '0']++;
+					}
+				}else if(letterStarted){
+					letter = AWD.MASK_LETTERS[bits];
+					put(letter, out);
+					if(AWDMetrics.ENABLED){
+						metricLetters++;
+						metricSeparators[ch - '0']++;
+					}
+					lastEnd = ch;
+					letterStarted = false;
+				}else{
+					decodeBits = bits;
+					inLetter = false;
+					endNum = 0;
+					flush(out);
+					return stop("Invalid character read. Terminating script.");
+				}
+			}
+
+			decodeBits = bits;
+			inLetter = letterStarted;
+			endNum = lastEnd;
+		}
+
+		for(; index < end; index++){
+			if(!decodeNumber((char)(bytes.get(index) & 0xFF), out)){
+				flush(out);
+				return false;
+			}
+		}
+
+		flush(out);
+		return true;
+	}
+
+	/**
+	* Reads one character of AWD: whitespace is skipped, a segment number changes the clockBits, and an
+	* end number adds the letter the clockBits make up, or repeats the last letter
+	*
+	*@param ch The character to read
+	*@param out Where the buffer is appended when full
+	*@return boolean True if the character was read, false if it is invalid
+	*@throws IOException If the English letters cannot be appended
+	*/
+	private boolean decodeNumber(char ch, Appendable out) throws IOException{
+		if(ch <= ' ')
+			return true;
+
+		// If the end number is repeated, so is the letter
+		if(endNum != 0){
+			if(ch == endNum){
+				put(letter, out);
+				if(AWDMetrics.ENABLED){
+					metricLetters++;
+					metricSeparators[ch - '0']++;
+				}
+				return true;
+			}
+			endNum = 0;
+		}
+
+		if(inLetter && (ch == '0' || ch == '8' || ch == '9')){
+			letter = AWD.MASK_LETTERS[decodeBits];
+			put(letter, out);
+			if(AWDMetrics.ENABLED){
+				metricLetters++;
+				metricSeparators[ch - '0']++;
+			}
+
+			endNum = ch;
+			inLetter = false;
+			return true;
+		}
+
+		if(ch < '1' || ch > '7'){
+			return stop("Invalid character read. Terminating script.");
+		}
+
+		decodeBits ^= 1 << (ch - '1');	// reverse whatever the bit was at that segment
+		inLetter = true;
+		return true;
+	}
+
+	/**
+	* Forgets the state of both directions and the stop reason, so that the codec can be used on a new text.
+	* A seeded codec starts its random choices over from the seed
+	*
+	*/
+	public void reset(){
+		super.reset();
+
+		encodeBits = 0;
+		lastNum = 0;
+		decodeBits = 0;
+		inLetter = false;
+		endNum = 0;
+		letter = 0;
+		metricCharacters = 0;
+	}
+
+	/**
+	* Determines whether the start of a text is AWD, meaning that it only consists of digits (whitespace
+	* aside), see AWDClassifier
+	*
+	*@param chunk The start of the text
+	*@return boolean True if the chunk is AWD, false otherwise
+	*/
+	public boolean isEncoded(CharSequence chunk){
+		return AWDClassifier.isAwd(chunk);
+	}
+
+	/**
+	* Sets the encoding state as if a letter with the given segments had just been encoded and followed by
+	* the given end number. Used to start encoding partway through a text
+	*
+	*@param letterBits The segment mask of the previous letter, 0 if there is none
+	*@param endNum The end number written after the previous letter, 0 if it isn't known
+	*/
+	public void setEncodeState(int letterBits, char endNum){
+		encodeBits = letterBits;
+		lastNum = endNum;
+	}
+
+	/**
+	* Gets the segment mask of the last letter encoded
+	*
+	*@return int The segment mask, 0 if nothing has been encoded
+	*/
+	public int getEncodeBits(){
+		return encodeBits;
+	}
+
+	/**
+	* Gets the last end number written
+	*
+	*@return char The end number, 0 if nothing has been encoded
+	*/
+	public char getLastNum(){
+		return lastNum;
+	}
+
+	/**
+	* Sets the decoding state as if the given clockBits had just been read, followed by an end number.
+	* Used to start decoding partway through a text, at the first number of a letter
+	*
+	*@param clockBits The clockBits of every number before the starting point
+	*/
+	public void setDecodeState(int clockBits){
+		decodeBits = clockBits;
+		inLetter = false;
+		endNum = 0;
+		letter = 0;
+	}
+
+	/**
+	* Sets the decoding state to that of the other codec, so that this codec carries on where the other
+	* one stopped
+	*
+	*@param other The codec to copy the decoding state from
+	*/
+	public void copyDecodeState(AwdCodec other){
+		decodeBits = other.decodeBits;
+		inLetter = other.inLetter;
+		endNum = other.endNum;
+		letter = other.letter;
+	}
+
+	/**
+	* Gets the clockBits read so far
+	*
+	*@return int The clockBits, 0 if nothing has been decoded
+	*/
+	public int getDecodeBits(){
+		return decodeBits;
+	}
+}
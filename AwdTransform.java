@@ -0,0 +1,32 @@
+/**
+* AwdTransform.java (AWD 1.0) by Peter Olson
+*
+* The Transform named "awd", which converts English letters to AWD and back with an AwdCodec
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* String getName()										--> Returns "awd"
+*
+* Transform.Stage newStage( boolean encode, RandomGenerator random )
+*																--> Creates a stage converting with a new AwdCodec
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.util.random.RandomGenerator;
+
+public class AwdTransform implements Transform{
+
+	public static final String NAME = "awd";
+
+	public String getName(){
+		return NAME;
+	}
+
+	public Transform.Stage newStage(boolean encode, RandomGenerator random){
+		return new Transform.CodecStage(new AwdCodec(random), encode);
+	}
+}
@@ -0,0 +1,97 @@
+/**
+* Codec.java (AWD 1.0) by Peter Olson
+*
+* What every cipher engine can do, so that AWDStream, AWDBatch, AWDServer and AWDBenchmark can run AWD
+* (AwdCodec) and Island (IslandCodec) the same way. A codec converts a text handed to it in any number of
+* pieces, keeping whatever state it needs between them, and makes its random choices with a
+* RandomGenerator of its own (see AWDRandom).
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* boolean encode( CharSequence text, Appendable out )
+*																--> Converts English letters to the cipher and appends them
+*
+* boolean decode( CharSequence text, Appendable out )
+*																--> Converts the cipher to English letters and appends them
+*
+* void reset()											--> Forgets the state of both directions, to start on a new
+*																	 text
+*
+* boolean isEncoded( CharSequence chunk )			--> Determines whether the start of a text is already in the
+*																	 cipher
+*
+* RandomGenerator getRandom()						--> Gets the generator making the random choices
+*
+* void setRandom( RandomGenerator random )		--> Sets the generator making the random choices
+*
+* RandomGenerator splitRandom()						--> Creates a generator for another codec working on a piece
+*																	 of the same text
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.io.IOException;
+import java.util.random.RandomGenerator;
+
+public interface Codec{
+
+	/**
+	* Converts English letters to the cipher. Whitespace is skipped, and lowercase letters are treated as
+	* uppercase
+	*
+	*@param text The English letters to convert
+	*@param out Where the cipher text is appended
+	*@return boolean True if the text was converted, false if an unrecognized character was found
+	*@throws IOException If the cipher text cannot be appended
+	*/
+	public boolean encode(CharSequence text, Appendable out) throws IOException;
+
+	/**
+	* Converts the cipher to English letters. Whitespace is skipped
+	*
+	*@param text The cipher text to convert
+	*@param out Where the English letters are appended
+	*@return boolean True if the text was converted, false if an invalid character was read
+	*@throws IOException If the English letters cannot be appended
+	*/
+	public boolean decode(CharSequence text, Appendable out) throws IOException;
+
+	/**
+	* Forgets the state of both directions, so that the codec can be used on a new text
+	*
+	*/
+	public void reset();
+
+	/**
+	* Determines whether the start of a text is already in the cipher, to decide which way to convert it
+	* when no direction is given. Every character of the chunk is looked at
+	*
+	*@param chunk The start of the text
+	*@return boolean True if the chunk is in the cipher, false otherwise
+	*/
+	public boolean isEncoded(CharSequence chunk);
+
+	/**
+	* Gets the generator making the random choices
+	*
+	*@return RandomGenerator The generator
+	*/
+	public RandomGenerator getRandom();
+
+	/**
+	* Sets the generator making the random choices
+	*
+	*@param random The generator, which must not be used by another thread at the same time
+	*/
+	public void setRandom(RandomGenerator random);
+
+	/**
+	* Creates a generator for another codec working on a piece of the same text
+	*
+	*@return RandomGenerator The new generator
+	*/
+	public RandomGenerator splitRandom();
+}
@@ -0,0 +1,398 @@
+/**
+* ConcurrentHashTable.java (AWD 1.0) by Peter Olson
+*
+* HashTable that can be shared by many threads, such as the alias and segment dictionaries used by every
+* translator thread. The elements are split between a number of segments by their hash value, and each
+* segment is a HashTable with a lock of its own, so threads working on different segments never wait on
+* each other.
+*
+* Each lock is a StampedLock. Inserting and deleting take the segment's write lock. Looking an element up
+* first reads the segment without locking at all, then checks that no write happened in the meantime; only
+* if one did is the lookup repeated under the read lock. Lookups by many threads at once therefore don't
+* write to any shared memory.
+*
+* *********** PUBLIC GLOBAL VARIABLES *********************************************
+*
+* static final int DEFAULT_SEGMENTS = 16			--> Number of segments when none is given
+*
+* *********** CONSTRUCTORS ********************************************************
+*
+* ConcurrentHashTable( int totalEntries )			--> Creates a table with room for totalEntries elements
+*
+* ConcurrentHashTable( int totalEntries, int segments )
+*																--> Creates a table with the given number of segments,
+*																	 rounded up to a power of two
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* static void main( String[] args )					--> Runs a stress test with many threads inserting, deleting
+*																	 and looking up elements at once
+*
+* Object find( Object elem )							--> Returns the element if found, returns null otherwise
+*
+* String findLetter( int id )							--> Returns the letter of the ENGBit with the id, null if not
+*																	 found
+*
+* void insert( Object elem )							--> Inserts the element if it isn't in the table yet
+*
+* void delete( Object elem )							--> Deletes the element if it is in the table
+*
+* int elementCount()										--> Returns the number of elements in the table
+*
+* boolean isEmpty()										--> Returns true if there are no elements in the table
+*
+* void makeEmpty()											--> Deletes every element
+*
+* HashTable.ProbeStatistics getProbeStatistics()	--> Returns the probe lengths and inactive cells of all the
+*																	 segments together
+*
+* *********** PRIVATE METHODS *****************************************************
+*
+* Segment getSegment( int hash )						--> Finds the segment that holds the hash value; used by
+*																	 find(..), findLetter(..), insert(..) and delete(..)
+*
+* static boolean stressTest( ConcurrentHashTable table, int threads, int elementsPerThread )
+*																--> Runs the stress test; used by main(..) method
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+
+public class ConcurrentHashTable{
+
+	public static final int DEFAULT_SEGMENTS = 16;	// Number of segments when none is given
+
+	private final Segment[] segments;
+	private final int mask;		// segments.length - 1
+
+	/**
+	* Segment Private Class
+	*
+	* A HashTable and the lock that guards it
+	*
+	*/
+	private static class Segment{
+
+		public final StampedLock lock = new StampedLock();
+		public final HashTable table;
+
+		/**
+		* Creates a segment with room for the number of elements
+		*
+		*@param totalEntries The number of elements expected in this segment
+		*/
+		public Segment(int totalEntries){
+			table = new HashTable(totalEntries);
+		}
+	}
+
+	/**
+	* Creates a table with DEFAULT_SEGMENTS segments and room for the number of elements before any
+	* segment has to rehash
+	*
+	*@param totalEntries The number of elements expected
+	*/
+	public ConcurrentHashTable(int totalEntries){
+		this(totalEntries, DEFAULT_SEGMENTS);
+	}
+
+	/**
+	* Creates a table with the number of segments, rounded up to a power of two, and room for the number
+	* of elements before any segment has to rehash
+	*
+	*@param totalEntries The number of elements expected
+	*@param segments The number of segments, which is how many threads can write at once
+	*/
+	public ConcurrentHashTable(int totalEntries, int segments){
+		int count = 1;
+		while(count < segments)
+			count <<= 1;
+
+		this.segments = new Segment[count];
+		mask = count - 1;
+
+		for(int i = 0; i < count; i++)
+			this.segments[i] = new Segment((totalEntries + count - 1) / count);
+	}
+
+	/**
+	* Finds whether the element is in the table. The segment is first read without locking, and read again
+	* under the read lock only if it was written to in the meantime. A lookup that sees a table halfway
+	* through a write can fail in any way, so whatever it returns or throws is only trusted once the stamp
+	* is validated
+	*
+	*@param elem The element to find
+	*@return Object The element; null if not found
+	*/
+	public Object find(Object elem){
+		Segment segment = getSegment(elem.hashCode());
+
+		long stamp = segment.lock.tryOptimisticRead();
+		if(stamp != 0){
+			try{
+				Object found = segment.table.find(elem);
+				if(segment.lock.validate(stamp))
+					return found;
+			}catch(RuntimeException e){
+				if(segment.lock.validate(stamp))
+					throw e;
+			}
+		}
+
+		stamp = segment.lock.readLock();
+		try{
+			return segment.table.find(elem);
+		}finally{
+			segment.lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	* Finds the letter of the ENGBit with the id, the same way as find(..). The segment is found from the
+	* id, the same way as from the ENGBit's hash code
+	*
+	*@param id The id of the ENGBit
+	*@return String The ENGBit's letter; null if not found
+	*/
+	public String findLetter(int id){
+		Segment segment = getSegment(Integer.hashCode(id));
+
+		long stamp = segment.lock.tryOptimisticRead();
+		if(stamp != 0){
+			try{
+				String letter = segment.table.findLetter(id);
+				if(segment.lock.validate(stamp))
+					return letter;
+			}catch(RuntimeException e){
+				if(segment.lock.validate(stamp))
+					throw e;
+			}
+		}
+
+		stamp = segment.lock.readLock();
+		try{
+			return segment.table.findLetter(id);
+		}finally{
+			segment.lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	* Inserts the element if it isn't in the table yet
+	*
+	*@param elem The element to insert
+	*/
+	public void insert(Object elem){
+		Segment segment = getSegment(elem.hashCode());
+		long stamp = segment.lock.writeLock();
+		try{
+			segment.table.insert(elem);
+		}finally{
+			segment.lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	* Deletes the element if it is in the table
+	*
+	*@param elem The element to delete
+	*/
+	public void delete(Object elem){
+		Segment segment = getSegment(elem.hashCode());
+		long stamp = segment.lock.writeLock();
+		try{
+			segment.table.delete(elem);
+		}finally{
+			segment.lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	* Returns the number of elements in the table. The segments are counted one after another, so the
+	* count may be off while other threads are inserting or deleting
+	*
+	*@return int The number of elements
+	*/
+	public int elementCount(){
+		int count = 0;
+		for(Segment segment : segments){
+			long stamp = segment.lock.readLock();
+			try{
+				count += segment.table.elementCount();
+			}finally{
+				segment.lock.unlockRead(stamp);
+			}
+		}
+		return count;
+	}
+
+	/**
+	* Returns true if there are no elements in the table
+	*
+	*@return boolean True if empty, false otherwise
+	*/
+	public boolean isEmpty(){
+		return elementCount() == 0;
+	}
+
+	/**
+	* Deletes every element, one segment at a time
+	*
+	*/
+	public void makeEmpty(){
+		for(Segment segment : segments){
+			long stamp = segment.lock.writeLock();
+			try{
+				segment.table.makeEmpty();
+			}finally{
+				segment.lock.unlockWrite(stamp);
+			}
+		}
+	}
+
+	/**
+	* Adds up the probe statistics of every segment, one segment at a time under its read lock
+	*
+	*@return HashTable.ProbeStatistics The statistics of the whole table
+	*/
+	public HashTable.ProbeStatistics getProbeStatistics(){
+		HashTable.ProbeStatistics stats = new HashTable.ProbeStatistics();
+		for(Segment segment : segments){
+			long stamp = segment.lock.readLock();
+			try{
+				stats.add(segment.table.getProbeStatistics());
+			}finally{
+				segment.lock.unlockRead(stamp);
+			}
+		}
+		return stats;
+	}
+
+	/**
+	* Finds the segment that holds the hash value, using its lowest bits
+	*
+	*@param hash The hash code of an element
+	*@return Segment The segment
+	*/
+	private Segment getSegment(int hash){
+		return segments[hash & mask];
+	}
+
+	/**
+	* Runs a stress test with many threads inserting, deleting and looking up elements at once, and prints
+	* whether the table held up
+	*
+	*@param args The number of threads and the number of elements per thread, both optional
+	*/
+	public static void main(String[] args){
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int elementsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+
+		ConcurrentHashTable table = new ConcurrentHashTable(16);	// small, so that segments rehash often
+		boolean passed = stressTest(table, threads, elementsPerThread);
+		System.out.println(table.getProbeStatistics());
+		System.out.println(passed ? "Stress test passed" : "Stress test FAILED");
+		if(!passed)
+			System.exit(1);
+	}
+
+	/**
+	* Runs the stress test. Each writer thread inserts its own range of ENGBits, deletes every other one and
+	* inserts them again, while reader threads keep looking up the ENGBits that their writer has finished
+	* inserting. A reader that can't find such an ENGBit, or a final count that is off, fails the test
+	*
+	*@param table The empty table to test
+	*@param threads The number of writer threads, each with a reader thread
+	*@param elementsPerThread The number of ENGBits inserted by each writer
+	*@return boolean True if the test passed, false otherwise
+	*/
+	private static boolean stressTest(ConcurrentHashTable table, int threads, int elementsPerThread){
+		AtomicInteger[] inserted = new AtomicInteger[threads];	// ENGBits each writer has finished inserting
+		AtomicBoolean failed = new AtomicBoolean(false);
+		AtomicBoolean writing = new AtomicBoolean(true);
+		AtomicInteger writersLeft = new AtomicInteger(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		Thread[] workers = new Thread[threads * 2];
+
+		for(int t = 0; t < threads; t++){
+			int first = t * elementsPerThread;
+			AtomicInteger done = inserted[t] = new AtomicInteger(0);
+
+			workers[t * 2] = new Thread(() -> {
+				try{
+					start.await();
+					for(int i = 0; i < elementsPerThread; i++){
+						table.insert(new ENGBit("L", first + i));
+						done.set(i + 1);
+					}
+					for(int i = 0; i < elementsPerThread; i += 2)
+						table.delete(new ENGBit("L", first + i));
+					for(int i = 0; i < elementsPerThread; i += 2)
+						table.insert(new ENGBit("L", first + i));
+				}catch(InterruptedException e){
+					failed.set(true);
+				}finally{
+					if(writersLeft.decrementAndGet() == 0)
+						writing.set(false);
+				}
+			});
+
+			workers[t * 2 + 1] = new Thread(() -> {
+				try{
+					start.await();
+					int i = 0;
+					while(writing.get() && !failed.get()){
+						int limit = done.get();
+						if(limit == elementsPerThread)
+							break;	// the writer has started deleting
+						if(limit > 0){
+							i = (i + 7919) % limit;
+							boolean found = table.find(new ENGBit("L", first + i)) != null && table.findLetter(first + i) != null;
+
+							// A miss only counts if the writer still hadn't started deleting afterwards
+							if(!found && done.get() < elementsPerThread){
+								System.out.println("Lost ENGBit " + (first + i));
+								failed.set(true);
+							}
+						}
+					}
+				}catch(InterruptedException e){
+					failed.set(true);
+				}
+			});
+		}
+
+		for(Thread worker : workers)
+			worker.start();
+		start.countDown();
+
+		try{
+			for(Thread worker : workers)
+				worker.join();
+		}catch(InterruptedException e){
+			return false;
+		}
+
+		int expected = threads * elementsPerThread;
+		if(table.elementCount() != expected){
+			System.out.println("Expected " + expected + " elements, found " + table.elementCount());
+			failed.set(true);
+		}
+
+		for(int id = 0; id < expected && !failed.get(); id++){
+			if(table.find(new ENGBit("L", id)) == null){
+				System.out.println("Lost ENGBit " + id);
+				failed.set(true);
+			}
+		}
+
+		return !failed.get();
+	}
+}
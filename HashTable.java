@@ -1,54 +1,105 @@
 /**
 * HashTable.java (AWD 1.0) by Peter Olson
 *
+* **********PUBLIC VARIABLES**********
+* static final float DEFAULT_LOAD_FACTOR = 0.5f	--> Load factor used when none is given to the constructor
+* static final int MIGRATE_STEP = 4					--> Number of old buckets moved on each insert or delete
+*																	 while rehashing
+*
 * **********PRIVATE VARIABLES**********
 * HashEntry[] entries		--> Stores the hash table entries in an array of HashEntrys
-* int totalEntries			--> Number of occupied cells in the hash table
+* HashEntry[] oldEntries	--> The entries of the table before the last rehash, which are moved into entries
+*										 a few at a time; null when no rehash is in progress
+* int migrateIndex			--> Index of the next old bucket to move into entries
+* int totalEntries			--> Number of occupied cells in entries, active or inactive
+* int inactiveEntries		--> Number of inactive (deleted) cells in entries
+* int activeEntries			--> Number of active elements in the hash table
+* float loadFactor			--> Largest fraction of cells in entries that can be occupied before rehashing
 *
-* CONSTRUCTOR: Uses totalEntries (num of occupied cells in hash table) to define the size of the hash table
+* CONSTRUCTOR: Uses totalEntries (num of elements expected) and the load factor to define the size of the
+*					 hash table
 *
 * **********PUBLIC METHODS*************
-* Object find( Object elem )		--> Returns the element if found, returns null otherwise:
-*												 used in void insert( Object elem ) and void delete( Object elem )
-*												 @@CHECK active status is irrelevant
+* Object find( Object elem )		--> Returns the element if found and active, returns null otherwise
+* String findLetter( int id )	--> Returns the letter of the active ENGBit with the id, null otherwise
 * void insert( Object elem )		--> Uses quadratic probing to insert an element into the hash table;
-*												 @@CHECK Doesn't write over inactive elements
+*												 reuses the first inactive cell on its probe sequence, and starts a
+*												 rehash once more than loadFactor of the table is occupied
 * void delete( Object elem )		--> If element is found and is active, sets the HashEntry's active
 *												 status to 'inactive'
+* ProbeStatistics getProbeStatistics()
+*											--> Returns the max and average probe length of the elements and the
+*												 fraction of inactive cells, to watch the health of the table
 * void printTable()					--> Prints out the array of HashEntrys, including index number and active status
-* int elementCount()					--> Returns the number of active elements in the hash table
+* int elementCount()					--> Returns the number of active elements in the hash table, O(1)
 * boolean isEmpty()					--> Returns true if there are no active HashEntrys
 * void makeEmpty()					--> Makes the hash table have no active/inactive HashEntrys
 * void outputData()					--> Prints out the array of HashEntrys using the iterator, @@CHECK all on one line 
+* static void main( String[] args )	--> Runs tests() and prints whether every trial passed
 *
 * **********PRIVATE METHODS*************
 * boolean checkIfPrime( int number )	--> Return true if the number if prime, false otherwise;
+*														 used in int nextPrime( int number )
+* int numOccupied()							--> Returns the number of occupied HashEntrys in the hash table, which
+*														 is kept up to date by every change
+* int nextPrime( int number )				--> Returns the smallest odd prime at least as large as the number;
 *														 used in void rehash() and the constructor
-* int numOccupied()							--> Returns the number of occupied HashEntrys in the hash table;
-*														 used by void insert( Object elem )
-* void rehash()								--> Rehashes the hash table by increasing the size to be equal to
-*														 the closest prime number to the current number of elements
-* int quadraticHash( Object elem )		--> Uses quadratic probing to find the next available index to
-*														 place an element; used in void insert( Object elem )
-* int hash( Object elem )					--> Uses hashCode() to find the hash value of the element, which is
-*														 used to find the index of that HashEntry; used in
-*														 Object find( Object elem ), void insert( Object elem ),
-*														 int quadraticHash( Object elem ), void delete( Object elem )
+* void rehash()								--> Starts moving the active elements into a new table sized for the
+*														 number of active elements; used by void insert( Object elem )
+* void migrate( int buckets )				--> Moves the next few buckets of the old table into the new one,
+*														 so that a rehash is spread out over many inserts and deletes;
+*														 used in void insert(..), void delete(..) and void rehash()
+* void finishRehash()						--> Moves every bucket left in the old table; used by the iterator,
+*														 void printTable() and tests(..)
+* int tests( int trials, int operations )
+*													--> Inserts and deletes random elements and checks that the
+*														 occupied, active and inactive counts match the cells; used in
+*														 static void main( String[] args )
+* String checkCounts()						--> Compares the occupied and inactive cells with the counts kept;
+*														 used in int tests(..)
+* int probe( HashEntry[] table, int home, Object elem, int id )
+*													--> Walks the quadratic probe sequence to the active HashEntry
+*														 holding the element, or to the first empty cell, remembering
+*														 the first inactive cell passed for reuse; used in
+*														 Object find(..), String findLetter(..), void insert(..),
+*														 void delete(..) and void migrate(..)
+* void measureProbes( ProbeStatistics stats, HashEntry[] table, int start )
+*													--> Adds the probe lengths of the active HashEntrys of a table;
+*														 used in ProbeStatistics getProbeStatistics()
+* int probeLength( HashEntry[] table, int index )
+*													--> Counts the cells probed to reach a HashEntry; used in
+*														 void measureProbes(..)
+* int hash( Object elem, int size )		--> Uses hashCode() to find the hash value of the element, which is
+*														 where probe(..) starts; used in Object find( Object elem ),
+*														 void insert( Object elem ), void delete( Object elem )
+* int hashID( int id, int size )			--> Same as hash(..), for the id of an ENGBit; used in
+*														 String findLetter( int id )
 *
 *@author Peter Olson
 *@version 1.0
 */
 
 //import java.util.LinkedList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
 
 public class HashTable 
 {
    //PUBLIC VARIABLES
    //private LinkedList[] arr; 
+   public static final float DEFAULT_LOAD_FACTOR = 0.5f; //quadratic probing always finds a free cell at or below 0.5
+   public static final int MIGRATE_STEP = 4; //old buckets moved on each insert or delete while rehashing
+   
    private HashEntry[] entries;
-   private int totalEntries; 
+   private HashEntry[] oldEntries = null; //not null while a rehash is in progress
+   private int migrateIndex = 0;
+   private int totalEntries = 0; //occupied cells in entries, active or inactive
+   private int inactiveEntries = 0;
+   private int activeEntries = 0;
+   private float loadFactor;
    
    /**
 	* HashEntry Private Class
@@ -107,31 +158,108 @@ public class HashTable
       
    }
    
+	/**
+	* ProbeStatistics Public Class
+	*
+	* The health of a hash table at one moment: how many cells a lookup of each element has to
+	* probe, and how many cells are taken up by inactive HashEntrys. Long probes mean elements are
+	* clustering; many inactive cells mean lookups of missing elements walk further than they need to
+	*
+	* **********PUBLIC VARIABLES**********
+	* int elements			--> Number of active elements measured
+	* long totalProbes		--> Sum of the probe lengths of the elements
+	* int maxProbe			--> Longest probe length of any element; 1 when it is in its home cell
+	* int cells				--> Number of cells in the table
+	* int inactiveCells		--> Number of cells holding an inactive HashEntry
+	*
+	* **********PUBLIC METHODS**********
+	* double averageProbe()				--> Returns the average probe length of the elements
+	* double tombstoneRatio()			--> Returns the fraction of cells that are inactive
+	* void add( ProbeStatistics other )	--> Adds the numbers of another table, such as another segment
+	* String toString()					--> Returns the statistics on one line
+	*
+	*/
+	public static class ProbeStatistics
+	{
+		public int elements = 0;
+		public long totalProbes = 0;
+		public int maxProbe = 0;
+		public int cells = 0;
+		public int inactiveCells = 0;
+		
+		/**
+		* Returns the average number of cells probed to find an element
+		*
+		*@return double The average probe length, 0 if there are no elements
+		*/
+		public double averageProbe()
+		{
+			return elements == 0 ? 0 : (double)totalProbes / elements;
+		}
+		
+		/**
+		* Returns the fraction of cells holding an inactive HashEntry
+		*
+		*@return double The tombstone ratio, from 0 to 1
+		*/
+		public double tombstoneRatio()
+		{
+			return cells == 0 ? 0 : (double)inactiveCells / cells;
+		}
+		
+		/**
+		* Adds the numbers of another table to these ones
+		*
+		*@param other The statistics of the other table
+		*/
+		public void add(ProbeStatistics other)
+		{
+			elements += other.elements;
+			totalProbes += other.totalProbes;
+			maxProbe = Math.max(maxProbe, other.maxProbe);
+			cells += other.cells;
+			inactiveCells += other.inactiveCells;
+		}
+		
+		/**
+		* Returns the statistics on one line
+		*
+		*@return String The statistics
+		*/
+		public String toString()
+		{
+			return String.format("%d elements in %d cells, max probe %d, average probe %.3f, tombstones %.2f%%",
+										elements, cells, maxProbe, averageProbe(), tombstoneRatio() * 100);
+		}
+	}
+   
    /**
-   * Creates an array of empty LinkedLists<T>
+   * Creates an empty hash table with room for the number of elements, using DEFAULT_LOAD_FACTOR
    *
-   *@param totalEntries The number of elements in the array
+   *@param totalEntries The number of elements expected in the hash table
    */
    public HashTable(int totalEntries)
    {
-      
-      int size = totalEntries * 2;///* * 2*/;
-      
-		///*
-		if(size % 2 == 0) //make size odd if even
-		{
-			size += 1;
-		}
-		
-      while(!checkIfPrime(size))
+      this(totalEntries, DEFAULT_LOAD_FACTOR);
+   }
+   
+   /**
+   * Creates an empty hash table with room for the number of elements before it has to rehash
+   *
+   *@param totalEntries The number of elements expected in the hash table
+   *@param loadFactor The largest fraction of the table that can be occupied before it rehashes, above 0 and
+   *						  at most 0.5 so that quadratic probing always finds a free cell
+   *@throws IllegalArgumentException If the load factor is out of range
+   */
+   public HashTable(int totalEntries, float loadFactor)
+   {
+      if(!(loadFactor > 0 && loadFactor <= 0.5f))
       {
-         size += 2; //assuming size starts off odd, don't need to test even numbers as they will be
-						  //divisible by 2
+         throw new IllegalArgumentException("Load factor must be above 0 and at most 0.5: " + loadFactor);
       }
-      //*/
-      
-      entries = new HashEntry[size];
       
+      this.loadFactor = loadFactor;
+      entries = new HashEntry[nextPrime((int)Math.ceil(totalEntries / loadFactor))];
    }
    
    /**
@@ -162,6 +290,29 @@ public class HashTable
       return true;
    }
    
+	/**
+	* Returns the smallest odd prime that is at least as large as the number, and at least 3
+	*
+	*@param number The smallest size wanted
+	*@return int The prime number
+	*/
+	private int nextPrime(int number)
+	{
+		int size = Math.max(number, 3);
+		
+		if(size % 2 == 0) //make size odd if even
+		{
+			size += 1;
+		}
+		
+		while(!checkIfPrime(size))
+		{
+			size += 2; //don't need to test even numbers as they will be divisible by 2
+		}
+		
+		return size;
+	}
+   
    /**
 	* HashIterator Private Class 
 	*
@@ -189,11 +340,14 @@ public class HashTable
 		public int cursor = 0;
 		
 		/**
-		* Instantiates cursor to be equal to the first active element in the HashTable
+		* Instantiates cursor to be equal to the first active element in the HashTable. Any rehash in progress
+		* is finished first, so that every element is in entries
 		*
 		*/
 		public HashIterator()
 		{
+			finishRehash();
+			
 			for(int k = 0; k < entries.length; k++)
 			{
 				if(entries[k] != null && entries[k].isActive)
@@ -276,9 +430,9 @@ public class HashTable
    */
    public Object find(Object elem)
    {
-      int index = hash(elem);
-		
-      if(entries[index] != null && entries[index].element.equals(elem) && entries[index].isActive)
+      //while rehashing, the element may not have been moved yet
+      if(probe(entries, hash(elem, entries.length), elem, 0) >= 0
+         || (oldEntries != null && probe(oldEntries, hash(elem, oldEntries.length), elem, 0) >= 0))
       {
          return elem;
       }
@@ -295,184 +449,261 @@ public class HashTable
 	*/
 	public String findLetter(int id)
 	{
-		int index = hashID(id);
+		HashEntry[] table = entries;
+		int index = probe(table, hashID(id, table.length), null, id);
 		
-		if(entries[index] != null && ((ENGBit)entries[index].element).getID() == id)
+		if(index < 0 && oldEntries != null) //while rehashing, the ENGBit may not have been moved yet
 		{
-			return ((ENGBit)entries[index].element).getLetter(); //get the ENGBit String letter and return it
+			table = oldEntries;
+			index = probe(table, hashID(id, table.length), null, id);
+		}
+		
+		if(index >= 0)
+		{
+			return ((ENGBit)table[index].element).getLetter(); //get the ENGBit String letter and return it
 		}
 		
 		return null;
 	}
 	
+	/**
+	* Walks the probe sequence home, home + 1, home + 4, home + 9, ... until the element or an empty cell
+	* is found. Every lookup, insert and delete goes through this walk, so they all agree on where an
+	* element can be. Inactive HashEntrys don't end the walk, since the element may have been placed past
+	* them, but the first one passed is remembered as the cell to reuse if the element isn't found. The
+	* number of cells visited is counted in AWDMetrics when metrics are on
+	*
+	*@param table The HashEntry[] to look in
+	*@param home The hash value of the element, for the length of the table
+	*@param elem The element to look for, or null to look for the ENGBit with the id
+	*@param id The id of the ENGBit to look for when elem is null
+	*@return int The index of the active HashEntry holding the element if found; otherwise -(index + 1),
+	*				 where index is the first inactive cell passed, or else the empty cell the walk stopped at
+	*/
+	private int probe(HashEntry[] table, int home, Object elem, int id)
+	{
+		int index = home;
+		int free = -1; //first inactive cell passed
+		
+		//a table that is at most half full always has an empty cell within length / 2 + 1 probes
+		for(long quadraticVar = 1; quadraticVar <= table.length; quadraticVar++)
+		{
+			HashEntry entry = table[index];
+			
+			if(entry == null)
+			{
+				if(AWDMetrics.ENABLED)
+					AWDMetrics.recordProbe((int)quadraticVar);
+				return -((free >= 0 ? free : index) + 1);
+			}
+			
+			if(entry.isActive)
+			{
+				if(elem != null ? entry.element.equals(elem) : ((ENGBit)entry.element).getID() == id)
+				{
+					if(AWDMetrics.ENABLED)
+						AWDMetrics.recordProbe((int)quadraticVar);
+					return index;
+				}
+			}
+			else if(free < 0)
+			{
+				free = index;
+			}
+			
+			index = (int)((home + quadraticVar * quadraticVar) % table.length);
+		}
+		
+		//only reached when read halfway through a write by another thread
+		return free >= 0 ? -(free + 1) : Integer.MIN_VALUE;
+	}
+	
    /**
-   * Inserts the element into the HashEntry[] and then
-   * uses hash(Object elem) to put the element into
-   * the correct spot in the hash table
+   * Inserts the element into the HashEntry[] at the cell found by
+   * probe(..), reusing the first inactive HashEntry along the way.
+   * Moves a few buckets of any rehash in progress, and starts a
+   * rehash once more than loadFactor of the table is occupied
    *
    *@param elem The element to insert into the HashTable
    */
    public void insert(Object elem)
    {
-      Object data = find(elem);
-		
+      migrate(MIGRATE_STEP);
+      
       //if elem is already in hash table, do nothing
-      if(data == null)
+      if(oldEntries != null && probe(oldEntries, hash(elem, oldEntries.length), elem, 0) >= 0)
       {
-			int index;
-			
-			HashEntry test = entries[hash(elem)];
+         return;
+      }
+      
+      int index = probe(entries, hash(elem, entries.length), elem, 0);
+      
+      if(index < 0)
+      {
+			index = -(index + 1);
 			
-         if(test == null || (test != null && test.isActive))
+			if(entries[index] != null) //reuse the inactive HashEntry's cell
 			{
-         	index = quadraticHash(elem);
+				inactiveEntries--;
 			}
-			else //when HashEntry is inactive
+			else
 			{
-				index = hash(elem);
+				totalEntries++;
 			}
-         
-         //insert element if space doesn't have an element
-         if(entries[index] == null || !entries[hash(elem)].isActive)
-         {
-            entries[index] = new HashEntry(elem, true); //true == active
-         }
+			
+			entries[index] = new HashEntry(elem, true); //true == active
+			activeEntries++;
       
-			//rehash when array is half-way filled with HashEntrys
-         if(numOccupied() >= entries.length/2)
+			//rehash when more than loadFactor of the array is filled with HashEntrys
+         if(numOccupied() > entries.length * loadFactor)
 			{
-				//rehash();
+				rehash();
 			}
       }
    }
 	
 	/**
-	* Returns the number of HashEntries in the hash table (active status doesn't matter)
+	* Returns the number of HashEntries in the hash table (active status doesn't matter). O(1), since
+	* the count is kept up to date by every change
 	*
 	*@return int The number of occupied HashEntrys
 	*/
 	private int numOccupied()
 	{
-		int count = 0;
-		
-		for(int i = 0; i < entries.length; i++)
-		{
-         if(entries[i] != null)
-         {
-            count++;
-         }
-		}
-		
-		return count;
+		return totalEntries;
 	}
 	
 	/**
-	* Resizes the HashEntry[] to be the size of the next largest prime number
+	* Starts moving the active elements into a new HashEntry[], whose size is the next prime large enough to
+	* hold them and everything that can be inserted before the move is done, at the load factor. Inactive
+	* HashEntrys are left behind. The elements are then moved MIGRATE_STEP buckets at a time by migrate(..),
+	* so no single insert has to wait for the whole table to be rehashed
 	*
 	*/
 	private void rehash()
 	{
+		finishRehash(); //only one old table at a time
 		
-      int size = entries.length * 2;
-      
-		if(size % 2 == 0) //make size odd
-		{
-			size += 1;
-		}
+		int needed = activeEntries * 2 + entries.length / MIGRATE_STEP;
 		
-		//set size to next highest prime number
-      while(!checkIfPrime(size))
-      {
-         size += 2; //check odd numbers
-      }
-      
-		HashEntry[] tempEntries = new HashEntry[size];
+		oldEntries = entries;
+		migrateIndex = 0;
+		entries = new HashEntry[nextPrime((int)Math.ceil(needed / loadFactor))];
+		totalEntries = 0;
+		inactiveEntries = 0;
 		
-		//move old values into temp array
-		for(int i = 0; i < entries.length; i++)
+		migrate(MIGRATE_STEP);
+	}
+	
+	/**
+	* Moves the next few buckets of the old table into entries, and forgets the old table once it is empty
+	*
+	*@param buckets The number of old buckets to move
+	*/
+	private void migrate(int buckets)
+	{
+		for(int moved = 0; oldEntries != null && moved < buckets; moved++)
 		{
-			if(entries[i] != null)
+			HashEntry entry = oldEntries[migrateIndex];
+			
+			if(entry != null && entry.isActive)
 			{
-				tempEntries[i] = entries[i];
+				int index = -(probe(entries, hash(entry.element, entries.length), entry.element, 0) + 1);
+				
+				if(entries[index] != null) //reuse the inactive HashEntry's cell, left by a delete since the rehash began
+				{
+					inactiveEntries--;
+				}
+				else
+				{
+					totalEntries++;
+				}
+				
+				entries[index] = entry;
+			}
+			
+			migrateIndex++;
+			
+			if(migrateIndex == oldEntries.length)
+			{
+				oldEntries = null;
+				migrateIndex = 0;
 			}
 		}
-      
-		entries = tempEntries;
 	}
-   
-   /**
-   * Uses a quadratic hash to find the index of the next open spot for
-   * the element to be placed
-   *
-   *@param elem The element to be 
-   */
-   private int quadraticHash(Object elem)
-   {
-      int index = hash(elem); //find where elem is
-      int quadraticVar = 1;
-      
-      //keep looking until find the index where there is no entry
-      while(entries[index] != null)
-      {
-         index += (quadraticVar * quadraticVar) % entries.length;
-         quadraticVar += 1;
-         
-         //set index back by the length of the hash table if the index has exceeded the length
-         index %= entries.length;
-      }
-      
-      return index;
-   }
+	
+	/**
+	* Moves every bucket left in the old table into entries
+	*
+	*/
+	private void finishRehash()
+	{
+		migrate(Integer.MAX_VALUE);
+	}
    
    /**
    * Finds the hash value of the element and returns
    *
    *@param elem The element to get the hash value of
+   *@param size The length of the HashEntry[] the hash value is for
    *@return int The hash value of the element
    */
-   private int hash(Object elem)
+   private int hash(Object elem, int size)
    {  
-		return Math.abs(elem.hashCode()) % entries.length;
+		return (elem.hashCode() & Integer.MAX_VALUE) % size; //never negative, unlike Math.abs(..)
    }
    
 	/**
 	* Find the hash value of the id and returns
 	*
 	*@param id The id to get the hash value of
+	*@param size The length of the HashEntry[] the hash value is for
 	*@return int The hash value of the id
 	*/
-	private int hashID(int id)
+	private int hashID(int id, int size)
 	{
-		return Math.abs(((Integer)id).hashCode()) % entries.length;
+		return (Integer.hashCode(id) & Integer.MAX_VALUE) % size;
 	}
 	
    /**
-   * Removes the element specified by using hash to find its
-   * location and then removing it from the HashEntry[]
+   * Removes the element by finding its HashEntry with probe(..)
+   * and setting it inactive, so that the walk to any element
+   * placed past it is not cut short
    *
    *@param elem The element to remove from the array
    */
    public void delete(Object elem)
    {
-		Object found = find(elem);
+		migrate(MIGRATE_STEP);
+		
+		int index = probe(entries, hash(elem, entries.length), elem, 0);
 	
-      if(found != null)
+      if(index >= 0)
       {
-         int index = hash(elem);
-			
-			if(entries[index].isActive)
-			{
-	         entries[index].isActive = false;
-			}
+         entries[index].isActive = false;
+         inactiveEntries++;
+         activeEntries--;
+      }
+      else if(oldEntries != null) //not moved yet; inactive HashEntrys are left behind by migrate(..)
+      {
+         index = probe(oldEntries, hash(elem, oldEntries.length), elem, 0);
+         
+         if(index >= 0)
+         {
+            oldEntries[index].isActive = false;
+            activeEntries--;
+         }
       }
    }
      
    /**
-   * Print out the HashTable elements
+   * Print out the HashTable elements, after finishing any rehash in progress
    *
    */
    public void printTable()
    {
+      finishRehash();
+      
       for(int i = 0; i < entries.length; i++)
       {
          if(entries[i] != null) //if there is an entry at the index
@@ -494,25 +725,83 @@ public class HashTable
    }
    	
 	/**
-	* Returns the number of active elements in the HashTable O(n)
+	* Returns the number of active elements in the HashTable O(1)
 	*
 	*@return int The number of active elements in the HashTable
 	*/
 	public int elementCount()
 	{
-		int count = 0;
+		return activeEntries;
+	}
+   
+	/**
+	* Measures how many cells a lookup of each active element has to probe, and how many cells are
+	* inactive. Elements not yet moved by a rehash in progress are measured in the old table. Takes time
+	* in proportion to the size of the table, so it is meant for watching the table now and then rather
+	* than on every lookup
+	*
+	*@return ProbeStatistics The statistics of the table
+	*/
+	public ProbeStatistics getProbeStatistics()
+	{
+		ProbeStatistics stats = new ProbeStatistics();
+		stats.cells = entries.length;
+		stats.inactiveCells = inactiveEntries;
 		
-		for(int i = 0; i < entries.length; i++)
+		measureProbes(stats, entries, 0);
+		
+		//the old buckets before migrateIndex have been moved into entries already, though migrate(..) leaves them
+		if(oldEntries != null)
 		{
-         if(entries[i] != null && entries[i].isActive)
-         {
-            count++;
-         }
+			measureProbes(stats, oldEntries, migrateIndex);
 		}
 		
-		return count;
+		return stats;
 	}
-   
+	
+	/**
+	* Adds the probe length of each active HashEntry in the table, from the given index on, to the statistics
+	*
+	*@param stats The statistics to add to
+	*@param table The HashEntry[] to measure
+	*@param start The index of the first cell measured
+	*/
+	private void measureProbes(ProbeStatistics stats, HashEntry[] table, int start)
+	{
+		for(int i = start; i < table.length; i++)
+		{
+			if(table[i] != null && table[i].isActive)
+			{
+				int length = probeLength(table, i);
+				stats.elements++;
+				stats.totalProbes += length;
+				stats.maxProbe = Math.max(stats.maxProbe, length);
+			}
+		}
+	}
+	
+	/**
+	* Counts the cells probe(..) visits to reach the HashEntry at the index, including its own
+	*
+	*@param table The HashEntry[] holding the HashEntry
+	*@param index The index of the HashEntry
+	*@return int The probe length; 1 if the HashEntry is in its home cell
+	*/
+	private int probeLength(HashEntry[] table, int index)
+	{
+		int home = hash(table[index].element, table.length);
+		int probed = home;
+		int length = 1;
+		
+		for(long quadraticVar = 1; probed != index; quadraticVar++)
+		{
+			probed = (int)((home + quadraticVar * quadraticVar) % table.length);
+			length++;
+		}
+		
+		return length;
+	}
+	
    /**
    * Finds whether the HashTable is empty or not
    *
@@ -520,20 +809,7 @@ public class HashTable
    */
    public boolean isEmpty()
    {
-   
-      //go through hash table to see if there are any active entries
-      for(int i = 0; i < entries.length; i++)
-      {
-         if(entries[i] != null)
-         {
-            if(entries[i].isActive)
-            {
-               return false; //return false when an active entry is found
-            }
-         }
-      }
-      
-      return true; //if none found, hash table is empty
+      return activeEntries == 0;
    }
    
 	/**
@@ -546,6 +822,12 @@ public class HashTable
       {
          entries[i] = null;
       }
+      
+      oldEntries = null;
+      migrateIndex = 0;
+      totalEntries = 0;
+      inactiveEntries = 0;
+      activeEntries = 0;
 	}
 	
 	/**
@@ -573,4 +855,122 @@ public class HashTable
       
 	} // end output
 	
+	/**
+	* Runs tests() to check the bookkeeping of the table
+	*
+	*@param args The number of trials and the operations per trial, 200 and 2000 by default
+	*/
+	public static void main(String[] args)
+	{
+		int trials = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int operations = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		
+		int failures = tests(trials, operations);
+		System.out.println(failures == 0 ? "All " + trials + " trials passed" :
+											  failures + " of " + trials + " trials failed");
+	}
+	
+	/**
+	* Inserts and deletes random elements, many of them while a rehash is in progress, and checks the counts
+	* kept by the table against its cells: after every change, the occupied and inactive cells of entries
+	* must be those counted and getProbeStatistics() must measure each element once, and once the rehash is
+	* finished at the end of a trial, the occupied cells must be the active plus the inactive ones, and the
+	* active ones the elements inserted and not deleted
+	*
+	*@param trials The number of tables to try
+	*@param operations The number of inserts and deletes made on each table
+	*@return int The number of trials whose counts were wrong
+	*/
+	private static int tests(int trials, int operations)
+	{
+		Random random = new Random(12);
+		int failures = 0;
+		
+		for(int trial = 0; trial < trials; trial++)
+		{
+			HashTable table = new HashTable(1 + random.nextInt(16));
+			Set<Integer> expected = new HashSet<>();
+			int range = 8 + random.nextInt(500);
+			String error = null;
+			
+			for(int op = 0; op < operations && error == null; op++)
+			{
+				Integer elem = random.nextInt(range);
+				
+				if(random.nextInt(3) == 0)
+				{
+					table.delete(elem);
+					expected.remove(elem);
+				}
+				else
+				{
+					table.insert(elem);
+					expected.add(elem);
+				}
+				
+				error = table.checkCounts();
+				
+				if(error == null && table.getProbeStatistics().elements != expected.size())
+				{
+					error = table.getProbeStatistics().elements + " elements measured, " + expected.size() +
+							  " expected";
+				}
+			}
+			
+			if(error == null)
+			{
+				table.finishRehash();
+				error = table.checkCounts();
+			}
+			
+			if(error == null && (table.totalEntries != table.activeEntries + table.inactiveEntries ||
+										table.activeEntries != expected.size()))
+			{
+				error = table.totalEntries + " occupied cells, " + table.activeEntries + " active, " +
+						  table.inactiveEntries + " inactive, " + expected.size() + " expected";
+			}
+			
+			if(error != null)
+			{
+				failures++;
+				System.out.println("Trial " + trial + ": " + error);
+			}
+		}
+		
+		return failures;
+	}
+	
+	/**
+	* Counts the occupied and inactive cells of entries and compares them with totalEntries and
+	* inactiveEntries
+	*
+	*@return String What doesn't match, or null if both counts are right
+	*/
+	private String checkCounts()
+	{
+		int occupied = 0;
+		int inactive = 0;
+		
+		for(HashEntry entry : entries)
+		{
+			if(entry != null)
+			{
+				occupied++;
+				
+				if(!entry.isActive)
+				{
+					inactive++;
+				}
+			}
+		}
+		
+		if(occupied != totalEntries || inactive != inactiveEntries)
+		{
+			return occupied + " occupied cells (counted " + totalEntries + "), " + inactive + " inactive (counted " +
+					 inactiveEntries + ")";
+		}
+		
+		return null;
+	}
+	
 } //end MyHashTable class
\ No newline at end of file
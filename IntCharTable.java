@@ -0,0 +1,273 @@
+/**
+* IntCharTable.java (AWD 1.0) by Peter Olson
+*
+* Hash table from int keys to char values, such as segment ids to ENG letters. Keys and values are held in
+* two parallel arrays, so nothing is boxed, cast or followed through a pointer when looking a key up.
+*
+* The arrays are a power of two long, so a key's home slot is found with a multiply and a shift instead of
+* a division. Collisions are resolved with linear probing, which keeps the slots of a probe next to each
+* other in memory. Removing a key shifts the keys after it back into the gap, so there are no inactive
+* entries to skip over.
+*
+* The key 0 marks an empty slot, so it is kept to the side in its own fields.
+*
+* *********** PUBLIC GLOBAL VARIABLES *********************************************
+*
+* static final char NO_VALUE = 0						--> Value returned for keys that aren't in the table
+*
+* static final float MAX_LOAD = 0.5f					--> Largest fraction of slots in use before the table grows
+*
+* *********** CONSTRUCTORS ********************************************************
+*
+* IntCharTable()												--> Creates an empty table with room for 8 keys
+*
+* IntCharTable( int expectedSize )						--> Creates an empty table with room for expectedSize keys
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* char get( int key )										--> Returns the value of the key, NO_VALUE if not found
+*
+* boolean containsKey( int key )						--> Returns true if the key is in the table
+*
+* char put( int key, char value )						--> Sets the value of the key, returns the old value
+*
+* char remove( int key )									--> Removes the key, returns its value
+*
+* int size()													--> Returns the number of keys in the table
+*
+* boolean isEmpty()											--> Returns true if there are no keys in the table
+*
+* void clear()												--> Removes every key
+*
+* *********** PRIVATE METHODS *****************************************************
+*
+* int findSlot( int key )									--> Finds the slot holding the key, or the empty slot where
+*																	 it would go; used by get(..), containsKey(..), put(..)
+*																	 and remove(..)
+*
+* int home( int key )										--> Finds the first slot probed for the key; used by
+*																	 findSlot(..) and remove(..)
+*
+* void resize( int capacity )							--> Moves every key into arrays of the new capacity; used by
+*																	 the constructor and put(..)
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.util.Arrays;
+
+public class IntCharTable{
+
+	public static final char NO_VALUE = 0;			// Value returned for keys that aren't in the table
+	public static final float MAX_LOAD = 0.5f;	// Largest fraction of slots in use before the table grows
+
+	private int[] keys;			// 0 marks an empty slot
+	private char[] values;
+	private int mask;				// keys.length - 1
+	private int shift;			// 32 - log2(keys.length), used by home(..)
+	private int size = 0;		// Number of keys, including the key 0
+
+	private boolean hasZeroKey = false;
+	private char zeroValue = NO_VALUE;
+
+	/**
+	* Creates an empty table with room for 8 keys before it grows
+	*
+	*/
+	public IntCharTable(){
+		this(8);
+	}
+
+	/**
+	* Creates an empty table with room for the expected number of keys before it grows
+	*
+	*@param expectedSize The number of keys expected
+	*/
+	public IntCharTable(int expectedSize){
+		int capacity = 2;
+		while(capacity * MAX_LOAD < expectedSize)
+			capacity <<= 1;
+		resize(capacity);
+	}
+
+	/**
+	* Returns the value of the key
+	*
+	*@param key The key to look up
+	*@return char The value of the key, NO_VALUE if the key isn't in the table
+	*/
+	public char get(int key){
+		if(key == 0)
+			return zeroValue;
+		return values[findSlot(key)];	// an empty slot holds NO_VALUE
+	}
+
+	/**
+	* Returns true if the key is in the table
+	*
+	*@param key The key to look for
+	*@return boolean True if the key is in the table, false otherwise
+	*/
+	public boolean containsKey(int key){
+		if(key == 0)
+			return hasZeroKey;
+		return keys[findSlot(key)] != 0;
+	}
+
+	/**
+	* Sets the value of the key, adding the key if it isn't in the table yet
+	*
+	*@param key The key to set
+	*@param value The value of the key
+	*@return char The old value of the key, NO_VALUE if the key wasn't in the table
+	*/
+	public char put(int key, char value){
+		char old;
+
+		if(key == 0){
+			old = zeroValue;
+			if(!hasZeroKey)
+				size++;
+			hasZeroKey = true;
+			zeroValue = value;
+			return old;
+		}
+
+		int slot = findSlot(key);
+		old = values[slot];
+		values[slot] = value;
+
+		if(keys[slot] == 0){
+			keys[slot] = key;
+			if(++size > keys.length * MAX_LOAD)
+				resize(keys.length * 2);
+		}
+
+		return old;
+	}
+
+	/**
+	* Removes the key from the table. The keys probed after it are shifted back so that no probe has to
+	* step over a gap
+	*
+	*@param key The key to remove
+	*@return char The value the key had, NO_VALUE if the key wasn't in the table
+	*/
+	public char remove(int key){
+		char old;
+
+		if(key == 0){
+			old = zeroValue;
+			if(hasZeroKey)
+				size--;
+			hasZeroKey = false;
+			zeroValue = NO_VALUE;
+			return old;
+		}
+
+		int gap = findSlot(key);
+		if(keys[gap] == 0)
+			return NO_VALUE;
+
+		old = values[gap];
+		size--;
+
+		// Shift back each following key whose home slot is at or before the gap
+		for(int slot = (gap + 1) & mask; keys[slot] != 0; slot = (slot + 1) & mask){
+			int distance = (slot - home(keys[slot])) & mask;	// how far the key is from its home slot
+			if(distance >= ((slot - gap) & mask)){
+				keys[gap] = keys[slot];
+				values[gap] = values[slot];
+				gap = slot;
+			}
+		}
+
+		keys[gap] = 0;
+		values[gap] = NO_VALUE;
+		return old;
+	}
+
+	/**
+	* Returns the number of keys in the table
+	*
+	*@return int The number of keys
+	*/
+	public int size(){
+		return size;
+	}
+
+	/**
+	* Returns true if there are no keys in the table
+	*
+	*@return boolean True if the table is empty, false otherwise
+	*/
+	public boolean isEmpty(){
+		return size == 0;
+	}
+
+	/**
+	* Removes every key from the table, keeping its capacity
+	*
+	*/
+	public void clear(){
+		Arrays.fill(keys, 0);
+		Arrays.fill(values, NO_VALUE);
+		hasZeroKey = false;
+		zeroValue = NO_VALUE;
+		size = 0;
+	}
+
+	/**
+	* Finds the slot holding the key by probing from its home slot, or the first empty slot if the key isn't
+	* in the table. The table is never full, so there is always an empty slot to stop at
+	*
+	*@param key The key to look for, not 0
+	*@return int The index of the slot
+	*/
+	private int findSlot(int key){
+		int slot = home(key);
+		while(keys[slot] != key && keys[slot] != 0)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	/**
+	* Finds the home slot of the key, the first one probed. The key is multiplied by 2^32 divided by the
+	* golden ratio, which spreads out keys that only differ in a few bits, and the top bits are kept
+	*
+	*@param key The key
+	*@return int The index of the home slot
+	*/
+	private int home(int key){
+		return (key * 0x9E3779B9) >>> shift;
+	}
+
+	/**
+	* Moves every key into new arrays of the given capacity
+	*
+	*@param capacity The new number of slots, a power of two
+	*/
+	private void resize(int capacity){
+		int[] oldKeys = keys;
+		char[] oldValues = values;
+
+		keys = new int[capacity];
+		values = new char[capacity];
+		mask = capacity - 1;
+		shift = 32 - Integer.numberOfTrailingZeros(capacity);
+
+		if(oldKeys == null)
+			return;
+
+		for(int i = 0; i < oldKeys.length; i++){
+			if(oldKeys[i] != 0){
+				int slot = findSlot(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+}
@@ -3,25 +3,55 @@
 *
 * Converts between Island language and English and vice versa
 *
-* -- *Island is a dynamic, alphabetic-looking language used to encrypt messages
+* -- *Island is a dynamic, alphabetic-looking language used to encrypt messages. Each English letter is
+*     written as a random key letter followed by a cipher letter, which depends on the key and on the
+*     English letter before it (see IslandCodec)
+*
+* *********** PUBLIC GLOBAL VARIABLES *********************************************
+*
+* String text					--> Text to work with, can be instantiated using Island(String text)
+*
+* *********** CONSTRUCTORS ********************************************************
+*
+* Island()						--> Default constructor
+*
+* Island( String text )		--> Instantiate text for the translator to use
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* static void main( String[] args )					--> Runs tests() to test functionality of program
+*
+* static String toIsland( String text )				--> Converts English letters to Island with IslandCodec
+*
+* static String toEng( String text )				--> Converts Island to English letters with IslandCodec
+*
+* *********** PRIVATE METHODS *****************************************************
+*
+* static void tests()									--> Asks the user for text, and prints it in Island and back
+*																	 in English; used by main(..) method
+*
+*
 *
 *@author Peter Olson
 *@version 1.0
 */
 
-import java.util.Random;
+import java.io.IOException;
 import java.util.Scanner;
 
 public class Island{
-	
+
+	// Codec reused by each thread, so that converting many texts doesn't create one per text
+	private static final ThreadLocal<IslandCodec> CODEC = ThreadLocal.withInitial(IslandCodec::new);
+
 	public String text;
-	
+
 	/**
 	* Default constructor
 	*
 	*/
 	public Island(){}
-	
+
 	/**
 	* Create a new Island object with text to use for encryption
 	*
@@ -30,7 +60,7 @@ public class Island{
 	public Island(String text){
 		this.text = text;
 	}
-	
+
 	/**
 	* Runs tests() to test functionality of program
 	*
@@ -39,51 +69,74 @@ public class Island{
 	public static void main(String[] args){
 		tests();
 	}
-	
+
 	/**
 	* Tests functionality of program by prompting user for text to be
-	* encrypted/decrypted
+	* encrypted/decrypted. Each text is converted to Island and back, and
+	* the two are printed along with whether the round trip gave the text back
 	*
 	*/
 	private static void tests(){
-		
+
+		Scanner input = new Scanner(System.in);
+
+		System.out.println("Enter text to convert to Island (letters and spaces), or nothing to stop:");
+		while(input.hasNextLine()){
+			String text = input.nextLine().trim();
+			if(text.isEmpty())
+				break;
+
+			String island = toIsland(text);
+			String english = toEng(island);
+
+			System.out.println("Island: " + island);
+			System.out.println("English: " + english);
+			System.out.println(english.equals(text.replace(" ", "").toUpperCase()) ? "Round trip OK" : "Round trip FAILED");
+			System.out.println("Enter more text, or nothing to stop:");
+		}
 	}
-	
+
+	/**
+	* Converts English letters to Island. Whitespace is skipped. Any other character that isn't a letter
+	* stops the conversion, and the letters converted up to it are returned
+	*
+	*@param text The English letters to convert
+	*@return String The Island letters, two for each English letter
+	*/
 	public static String toIsland(String text){
-	
-		String result = text;
-		
-		result = result.trim();
-		result = result.toUpperCase();
-	
-		// If text contains non-alphabetic character, return error String
-		if(!isAlpha(result))
-			return "Unrecognized Non-Alphabetic Letter";
-		
-		// Generate island sequence
-		int[][] islandSequence = new int[result.length()][result.length()];
-		Random rand = new Random();
-		
-		for(int i = 0; i < islandSequence.length; i++){
-			
+
+		StringBuilder builder = new StringBuilder(text.length() * 2);
+		IslandCodec codec = CODEC.get();
+		codec.reset();
+
+		try{
+			codec.encode(text, builder); //stops at the first unrecognized character
+		}catch(IOException e){
+			//StringBuilder does not throw IOException
 		}
-		
-		return result;
+
+		return builder.toString();
 	}
-	
+
 	/**
-	* Checks if the String is made up of all alphabetic values. If so, returns true and returns false
-	* otherwise.
+	* Converts Island to English letters. Whitespace is skipped. Any other character that isn't a letter
+	* stops the conversion, and the letters converted up to it are returned
 	*
-	*@param input The text to be checked
-	*@return boolean True if String is completely alphabetic, false otherwise
+	*@param text The Island letters to convert
+	*@return String The English letters
 	*/
-	private static boolean isAlpha(String input){
-		char[] chArr = input.toCharArray();
-		boolean done = true;
-		for(int i = 0; i < chArr.length; i++)
-			if(!Character.isAlphabetic(chArr[i]))
-				return false;
-		return true;
+	public static String toEng(String text){
+
+		StringBuilder builder = new StringBuilder(text.length() / 2);
+		IslandCodec codec = CODEC.get();
+		codec.reset();
+
+		try{
+			codec.decode(text, builder); //stops at the first invalid character
+		}catch(IOException e){
+			//StringBuilder does not throw IOException
+		}
+
+		return builder.toString();
 	}
-}
\ No newline at end of file
+}
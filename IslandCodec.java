@@ -0,0 +1,186 @@
+/**
+* IslandCodec.java (AWD 1.0) by Peter Olson
+*
+* Reusable engine that converts between English and Island without creating objects per letter. Island
+* writes each English letter as a pair of letters:
+*
+*		key				--> A random letter
+*		cipher			--> The letter plus the key plus the English letter before it, wrapping around
+*								 the alphabet ('A' = 0, ..., 'Z' = 25)
+*
+* so the same word is written differently every time, and every letter depends on the one before it. A
+* pair is read back by subtracting the key and the previous letter from the cipher letter. Only the
+* previous English letter (and, when decoding, a key whose cipher letter hasn't been read yet) is kept
+* between letters, so a text of any length is converted in the memory of the output alone, and can be
+* handed to the codec in pieces. Use reset() before starting on a new text.
+*
+* Random choices and the output buffer are handled by AbstractCodec, the same way as in AwdCodec.
+*
+* *********** CONSTRUCTORS ********************************************************
+*
+* IslandCodec()					--> Creates a codec with its own random number generator, started from
+*										 the awd.seed system property if it is set
+*
+* IslandCodec( long seed )		--> Creates a codec whose random choices are decided by the seed
+*
+* IslandCodec( RandomGenerator random )
+*									--> Creates a codec that makes its random choices with the generator
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* boolean encode( CharSequence text, Appendable out )
+*																--> Converts English letters to Island and appends them
+*
+* boolean decode( CharSequence text, Appendable out )
+*																--> Converts Island letters to English and appends them
+*
+* void reset()											--> Forgets the state of both directions, and goes back to
+*																	 the seed if the codec has one
+*
+* boolean isEncoded( CharSequence chunk )			--> Always false, since Island looks like English letters
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.io.IOException;
+import java.util.random.RandomGenerator;
+
+public class IslandCodec extends AbstractCodec{
+
+	private int encodePrevious = 0;	// The last English letter encoded, 0 - 25
+	private int decodePrevious = 0;	// The last English letter decoded, 0 - 25
+	private int key = -1;				// The key letter read, 0 - 25, while waiting for its cipher letter
+
+	/**
+	* Creates a codec with its own random number generator. If the awd.seed system property is set, the
+	* codec is seeded with it
+	*
+	*/
+	public IslandCodec(){
+		super();
+	}
+
+	/**
+	* Creates a codec whose random choices are decided by the seed, so that it encodes a text the same way
+	* every time it is reset
+	*
+	*@param seed The seed
+	*/
+	public IslandCodec(long seed){
+		super(seed);
+	}
+
+	/**
+	* Creates a codec that makes its random choices with the generator, which must not be used by another
+	* thread at the same time
+	*
+	*@param random The generator
+	*/
+	public IslandCodec(RandomGenerator random){
+		super(random);
+	}
+
+	/**
+	* Converts English letters to Island, two letters for each. Whitespace is skipped, and lowercase letters
+	* are treated as uppercase.
+	*
+	*@param text The English letters to convert
+	*@param out Where the Island letters are appended
+	*@return boolean True if the text was converted, false if an unrecognized character was found
+	*@throws IOException If the Island letters cannot be appended
+	*/
+	public boolean encode(CharSequence text, Appendable out) throws IOException{
+		int length = text.length();
+
+		for(int index = 0; index < length; index++){
+			char ch = text.charAt(index);
+			if(ch <= ' ')
+				continue;
+			if(ch >= 'a' && ch <= 'z')
+				ch -= 'a' - 'A';
+
+			if(ch < 'A' || ch > 'Z'){
+				flush(out);
+				return stop("Unrecognized character: " + ch + System.lineSeparator() +
+								"Unrecognized character name: " + Character.getName(ch));
+			}
+
+			int letter = ch - 'A';
+			int keyLetter = random.nextInt(AWD.ALPHABET_SIZE);
+
+			put((char)('A' + keyLetter), out);
+			put((char)('A' + (letter + keyLetter + encodePrevious) % AWD.ALPHABET_SIZE), out);
+			encodePrevious = letter;
+		}
+
+		flush(out);
+		return true;
+	}
+
+	/**
+	* Converts Island letters to English. Whitespace is skipped, and lowercase letters are treated as
+	* uppercase. A key whose cipher letter hasn't been read yet is finished by the next call.
+	*
+	*@param text The Island letters to convert
+	*@param out Where the English letters are appended
+	*@return boolean True if the text was converted, false if an invalid character was read
+	*@throws IOException If the English letters cannot be appended
+	*/
+	public boolean decode(CharSequence text, Appendable out) throws IOException{
+		int length = text.length();
+
+		for(int index = 0; index < length; index++){
+			char ch = text.charAt(index);
+			if(ch <= ' ')
+				continue;
+			if(ch >= 'a' && ch <= 'z')
+				ch -= 'a' - 'A';
+
+			if(ch < 'A' || ch > 'Z'){
+				flush(out);
+				return stop("Invalid character read. Terminating script.");
+			}
+
+			if(key < 0){
+				key = ch - 'A';
+				continue;
+			}
+
+			// cipher - key - previous, kept positive before wrapping around
+			int letter = (ch - 'A' - key - decodePrevious + 2 * AWD.ALPHABET_SIZE) % AWD.ALPHABET_SIZE;
+			put((char)('A' + letter), out);
+			decodePrevious = letter;
+			key = -1;
+		}
+
+		flush(out);
+		return true;
+	}
+
+	/**
+	* Forgets the state of both directions, so that the codec can be used on a new text. A seeded codec
+	* starts its random choices over from the seed
+	*
+	*/
+	public void reset(){
+		super.reset();
+
+		encodePrevious = 0;
+		decodePrevious = 0;
+		key = -1;
+	}
+
+	/**
+	* Island is made of the same letters as English, so a text can't be told to be Island by looking at it.
+	* Island text is only decoded when asked to
+	*
+	*@param chunk The start of the text
+	*@return boolean False
+	*/
+	public boolean isEncoded(CharSequence chunk){
+		return false;
+	}
+}
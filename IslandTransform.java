@@ -0,0 +1,32 @@
+/**
+* IslandTransform.java (AWD 1.0) by Peter Olson
+*
+* The Transform named "island", which converts English letters to Island and back with an IslandCodec
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* String getName()										--> Returns "island"
+*
+* Transform.Stage newStage( boolean encode, RandomGenerator random )
+*																--> Creates a stage converting with a new IslandCodec
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.util.random.RandomGenerator;
+
+public class IslandTransform implements Transform{
+
+	public static final String NAME = "island";
+
+	public String getName(){
+		return NAME;
+	}
+
+	public Transform.Stage newStage(boolean encode, RandomGenerator random){
+		return new Transform.CodecStage(new IslandCodec(random), encode);
+	}
+}
@@ -0,0 +1,238 @@
+/**
+* NltTransform.java (AWD 1.0) by Peter Olson
+*
+* The Transform named "nlt", which translates punctuation to alpha text with the NonLetterTranslator and
+* back. Encoding translates each chunk as it comes, except for the start of a line separator that the
+* chunk ends in. Decoding holds the letters back until they make up whole PAS and text OC sequences, like
+* AWDStream does, and translates them NLT_PIECE_SIZE characters at a time. Decoding stops at a PAS that
+* isn't recognized, and says so unless the stage is quiet.
+*
+* When encoding with "awd" right after it, the two are fused: each letter the NonLetterTranslator makes,
+* including the PAS and OCs that punctuation is replaced by, goes straight into the AwdCodec, so the alpha
+* text is never put together
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* String getName()										--> Returns "nlt"
+*
+* Transform.Stage newStage( boolean encode, RandomGenerator random )
+*																--> Creates a stage translating to or from alpha text
+*
+* Transform.Stage fuse( Transform next, boolean encode, RandomGenerator random )
+*																--> Creates a FusedEncodeStage when encoding to AWD
+*
+* *********** NESTED TYPES ********************************************************
+*
+* class EncodeStage										--> Translates nonletter text to alpha text
+*
+* class DecodeStage										--> Translates alpha text back to nonletter text; also used
+*																	 by AWDServer
+*
+* class FusedEncodeStage								--> Translates nonletter text and encodes it to AWD in one
+*																	 pass; also used by AWDStream and AWDServer
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.random.RandomGenerator;
+
+public class NltTransform implements Transform{
+
+	public static final String NAME = "nlt";
+
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	public String getName(){
+		return NAME;
+	}
+
+	public Transform.Stage newStage(boolean encode, RandomGenerator random){
+		return encode ? new EncodeStage(random) : new DecodeStage(false);
+	}
+
+	public Transform.Stage fuse(Transform next, boolean encode, RandomGenerator random){
+		if(encode && next instanceof AwdTransform)
+			return new FusedEncodeStage(new AwdCodec(random));
+		return null;
+	}
+
+	/**
+	* EncodeStage Class
+	*
+	* Translates nonletter text to alpha text. When the line separator is more than one character long and a
+	* chunk ends in its first character, that character is held back for the next chunk, so that a line
+	* separator split between two chunks is still translated as one
+	*
+	*/
+	static class EncodeStage implements Transform.Stage{
+
+		protected final RandomGenerator random;
+		private final StringBuilder pending = new StringBuilder();	// Characters held back from the last chunk
+
+		public EncodeStage(RandomGenerator random){
+			this.random = random;
+		}
+
+		public boolean process(CharSequence chunk, Appendable out) throws IOException{
+			int end = chunk.length();
+			if(end == 0)
+				return true;
+
+			if(pending.length() != 0){
+				pending.append(chunk);
+				chunk = pending.toString();
+				pending.setLength(0);
+				end = chunk.length();
+			}
+
+			if(LINE_SEPARATOR.length() > 1 && chunk.charAt(end - 1) == LINE_SEPARATOR.charAt(0)){
+				--end;
+				pending.append(chunk.charAt(end));
+			}
+
+			return translate(end == chunk.length() ? chunk : CharBuffer.wrap(chunk, 0, end), out);
+		}
+
+		public boolean finish(Appendable out) throws IOException{
+			boolean translated = translate(pending, out);
+			pending.setLength(0);
+			return translated;
+		}
+
+		/**
+		* Translates the text to alpha text
+		*
+		*@param text The text to translate
+		*@param out Where the alpha text is appended
+		*@return boolean True if the text was translated, false if the conversion has to stop
+		*@throws IOException If the alpha text cannot be appended
+		*/
+		boolean translate(CharSequence text, Appendable out) throws IOException{
+			NonLetterTranslator.toAlpha(text, out, random);
+			return true;
+		}
+	}
+
+	/**
+	* DecodeStage Class
+	*
+	* Translates alpha text back to nonletter text, holding back the letters that don't yet make up a whole
+	* PAS or text OC sequence
+	*
+	*/
+	static class DecodeStage implements Transform.Stage{
+
+		private final boolean quiet;	// True if a PAS that isn't recognized is not printed
+		private final StringBuilder alpha = new StringBuilder();	// Letters not yet translated
+
+		/**
+		* Creates a stage translating alpha text back to nonletter text
+		*
+		*@param quiet True to stop at a PAS that isn't recognized without printing it, as a server does
+		*/
+		DecodeStage(boolean quiet){
+			this.quiet = quiet;
+		}
+
+		public boolean process(CharSequence chunk, Appendable out) throws IOException{
+			alpha.append(chunk);
+
+			int start = 0;
+			int length = NonLetterTranslator.getCompleteLength(alpha, start, AWDStream.NLT_PIECE_SIZE);
+			while(length > 0){
+				if(!translate(CharBuffer.wrap(alpha, start, start + length), out)){
+					alpha.setLength(0);	// nothing after the stop is translated, even by finish(..)
+					return false;
+				}
+				start += length;
+				length = NonLetterTranslator.getCompleteLength(alpha, start, AWDStream.NLT_PIECE_SIZE);
+			}
+			alpha.delete(0, start);
+			return true;
+		}
+
+		public boolean finish(Appendable out) throws IOException{
+			boolean translated = translate(alpha, out);
+			alpha.setLength(0);
+			return translated;
+		}
+
+		/**
+		* Translates whole PAS and text OC sequences back to nonletter text
+		*
+		*@param text The alpha text to translate
+		*@param out Where the nonletter text is appended
+		*@return boolean True if the text was translated, false if it stopped at a PAS that isn't recognized
+		*@throws IOException If the nonletter text cannot be appended
+		*/
+		private boolean translate(CharSequence text, Appendable out) throws IOException{
+			if(NonLetterTranslator.toNonLetter(text, out))
+				return true;
+
+			if(!quiet)
+				System.out.println(NonLetterTranslator.UNRECOGNIZED_PAS);
+			return false;
+		}
+	}
+
+	/**
+	* FusedEncodeStage Class
+	*
+	* Translates nonletter text to alpha text and encodes it to AWD in the same pass. The stage is the
+	* Appendable the NonLetterTranslator appends to, and hands each letter of it, PAS and OCs included,
+	* straight to AwdCodec.encodeLetter(..)
+	*
+	*/
+	static class FusedEncodeStage extends EncodeStage implements Appendable{
+
+		private final AwdCodec codec;
+		private Appendable out;		// Where the AWD numbers of the text being translated are appended
+		private boolean stopped;	// True once a character that isn't a letter was found
+
+		/**
+		* Creates a stage encoding with the codec, whose generator also picks the PAS and OCs
+		*
+		*@param codec The codec, ready to start on a new text
+		*/
+		public FusedEncodeStage(AwdCodec codec){
+			super(codec.getRandom());
+			this.codec = codec;
+		}
+
+		/**
+		* Translates the text and encodes each letter as it is made
+		*
+		*@param text The text to translate
+		*@param out Where the AWD numbers are appended
+		*@return boolean True if the text was encoded, false if a character that isn't a letter was found
+		*@throws IOException If the AWD numbers cannot be appended
+		*/
+		boolean translate(CharSequence text, Appendable out) throws IOException{
+			this.out = out;
+			NonLetterTranslator.toAlpha(text, this, random);
+			codec.flushEncoded(out);
+			return !stopped;
+		}
+
+		public Appendable append(char c) throws IOException{
+			if(!stopped)
+				stopped = !codec.encodeLetter(c, out);
+			return this;
+		}
+
+		public Appendable append(CharSequence csq) throws IOException{
+			return append(csq, 0, csq.length());
+		}
+
+		public Appendable append(CharSequence csq, int start, int end) throws IOException{
+			for(int i = start; i < end && !stopped; i++)
+				stopped = !codec.encodeLetter(csq.charAt(i), out);
+			return this;
+		}
+	}
+}
@@ -13,6 +13,9 @@
 * String text									--> Text to work with, can be instantiated using
 *														 NonLetterTranslator(String text) constructor
 *
+* static final String UNRECOGNIZED_PAS		--> Reason given when alpha text can't be translated back,
+*														 e.g. for a PAS that isn't in PAS_TRIE
+*
 * *********** CONSTRUCTORS *********************************************************************
 *
 * NonLetterTranslator()						--> Default constructor
@@ -26,49 +29,81 @@
 *
 * static String translate( String input )		--> Translates the input String into alpha format or nonletter
 *																 format depending on whether the the input contains OC
-*																 sequences. Holds all the informational arrays regarding
-*																 punctuation translations and oc info; used in tests() method
+*																 sequences, using the PAS and OC tables, which are built
+*																 once when the class is loaded; used in tests() method
+*
+* static String translate( String input, RandomGenerator random )
+*															--> Same as translate(..) above, picking PAS and OCs with the
+*																 given generator; used by AWDStream
+*
+* static String[] getPunctuationMarks()			--> Returns the punctuation marks that are translated; used by
+*																 AWDDictionary
+*
+* static String[] getAliases( int markIndex )	--> Returns the PAS of a punctuation mark; used by AWDDictionary
 * 
 * *********** PRIVATE METHODS ******************************************************************
 *
 * static void tests()								--> Runs tests on the NLT via user input to check that the
 *																 NLT is working; used in main() method
 *
-* static String toAlpha( String input, ArrayList<String[]> punctuation, String[] ocLetters,
-*								 String[][] openersClosers, String[] punctuationMarks, String[][] textOCS )
+* static String toAlpha( String input, RandomGenerator random )
 *															--> Converts text from something that may have punctuation to
 *																 text that completely consists of alphabetic letters, where
 *																 punctuation is translated into various sequences of
 *																 representative letters; used in translate(..) method
 *
-* static String getOC( String replacement, String[] ocLetters, String[][] openersClosers )
+* static void toAlpha( CharSequence input, Appendable out, RandomGenerator random )
+*															--> Translates text to alphabetic values in a single pass,
+*																 looking each character up in MARK_INDEXES and appending
+*																 the PAS and OCs as it goes; used in toAlpha(..) method
+*
+* static String getOC( int ocMask, String[][] ocChoices, RandomGenerator random )
 *															--> Gets a random OC (openerCloser), used to encapsulate
 *																 PAS (punctuation alpha sequences) in order to be able to
 *																 translate the text back into text containing punctuation
 *																 later on; used in toAlpha(..) method
 *
+* static int getOCMask( String text )			--> Finds which OC letters are in the text; used when the
+*																 class is loaded
+*
+* static String[][] getOCChoices( String[][] openersClosers )
+*															--> Lists the OCs that can be picked for each set of OC
+*																 letters; used when the class is loaded
+*
 * static boolean isDone( String result )		--> Returns true if the String consists only of alphabetic
 *																 values, and returns false if it doesn't; used in translate(..)
 *																 method and toAlpha(..) method
 *
 * static boolean contains( String text, String[] container ) 
 *															--> Returns true if the text is equal to another String in the
-*																 String array; used by toAlpha(..), getOC(..), containsOC(..),
-*																 toNonLetter(..), and the getClosestOCCharIndex(..) methods
+*																 String array; used by containsOC(..)
 *
 * static boolean containsOC( String text, String[] ocChars )
 *															--> Determines whether the text has OC in it or not (this includes
 *																 textOC); used in translate(..)
 *
-* static String toNonLetter( String input, ArrayList<String[]> punctuation, String[] ocLetters,
-*												 String[][] openersClosers, String[] punctuationMarks, String[][] textOCS )
-*															--> Translates alpha text (text consisting only of alphabetic values,
+* static String toNonLetter( String input )	--> Translates alpha text (text consisting only of alphabetic values,
 *																 some of which represent punctuation marks) to nonletter text
 *																 (text with punctuation/numbers); used in translate(..) method
 *
-* static int getClosestOCCharIndex( String original, int startIndex, String[] ocLetters )
-*															--> Finds the index of the first character of the nearest OC pair
-*																 (going forward); used in toNonLetter(..) method
+* static boolean toNonLetter( CharSequence input, Appendable out )
+*															--> Translates alpha text to nonletter text in a single pass,
+*																 finding each PAS with PAS_TRIE, and stops at a sequence it
+*																 can't read; used in toNonLetter(..) method and by AWDStream
+*
+* static int getPASEnd( CharSequence input, int start, boolean endOfText )
+*															--> Finds the closing OC pair of a PAS, after the longest PAS
+*																 in PAS_TRIE that is followed by one; used in toNonLetter(..)
+*																 and getCompleteLength(..)
+*
+* static int getTrieChild( int node, char letter )
+*															--> Finds the PAS_TRIE node reached by following a letter;
+*																 used in toNonLetter(..) method
+*
+* static int getCompleteLength( CharSequence original, int startIndex, int limit )
+*															--> Finds how many characters of alpha text make up whole
+*																 letters, text OCs and PAS, so that they can be translated
+*																 on their own; used by AWDStream
 *
 *
 *
@@ -77,9 +112,13 @@
 *
 */
 
-import java.util.Random;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Scanner;
+import java.util.random.RandomGenerator;
 
 /**
 * Translates text, specifically text containing punctuation and other non-alphabetic characters,
@@ -99,95 +138,74 @@ import java.util.Scanner;
 */
 public class NonLetterTranslator{
 	
-	public String text;
+	// Allows for easier oc calculations and handling
+	private static final String[] OC_LETTERS = {"J", "V", "Q", "X", "Z"};
 	
-	/**
-	* Runs test functions
-	*
-	*@param args Command line arguments (not used)
-	*/
-	public static void main(String[] args){
-		tests();
-	}
+	// Opening and closing strings for text containing OC letters -- Using a 2D array in order to be able to
+	// use the getOC function
+	private static final String[][] TEXT_OCS = {{"JJ"}, {"VV"}, {"QQ"}, {"XX"}, {"ZZ"}};
 	
-	/**
-	* Tests functionality of NonLetterTranslator, specifically it's two main functions,
-	* toAlpha(..) and toNonLetter(..)
-	*
-	*/
-	private static void tests(){
-		Scanner scan = new Scanner(System.in);
+	// Opening and closing strings that are used to recognize translated punctuation when converting back
+	// to the original nonletter format
+	private static final String[][] OPENERS_CLOSERS = {{"JV", "JQ", "JX", "JZ"}, {"VJ", "VQ", "VX", "VZ"},
+																		{"QJ", "QV", "QX", "QZ"}, {"XJ", "XV", "XQ", "XZ"},
+																		{"ZJ", "ZV", "ZQ", "ZX"}};
 	
-		System.out.println("What would you like to translate?");
-		String text = "";
-		text += scan.nextLine();
-		
-		String result = translate(text);
-		
-		System.out.println("Translation: " + result);
-		
-	}
+	// All punctuation that is checked to be translated
+	// Still need to handle carriage returns
+	private static final String[] PUNCTUATION_MARKS = {" ", "!", "?", ".", ",", "1", "2", "3", "4", "5", "6", "7", "8",
+																		"9", "0", "\"", "<", ">", "/", "'", ":", ";", "[", "]", "{", "}",
+																		"|", "\\", "`", "~", "@", "#", "$", "%", "^", "&", "*", "(", ")",
+																		"-", "_", "+", "=", "\t", "\u201C", "\u201D", "\u2018", "\u2019",
+																		"\u2026", "\u003A", "\u2013", "\u0085",
+																		System.getProperty("line.separator"), "\u0009"};
 	
-	/**
-	* Create a new NonLetterTranslator
-	*
-	*/
-	public NonLetterTranslator(){}
+	// Holds all of the nonletter translation arrays, in the same order as PUNCTUATION_MARKS
+	private static final List<String[]> PUNCTUATION;
 	
-	/**
-	* Create a new NonLetterTranslator and set the text of the NLT
-	*
-	*@param text The text to be translated (presumably)
+	// PUNCTUATION with every PAS in caps, as it is written by toAlpha(..)
+	private static final List<String[]> UPPER_PUNCTUATION;
+	
+	/* Trie of every PAS (in caps), used to find the punctuation mark of a PAS one letter at a time. Each node
+		has a row of AWD.ALPHABET_SIZE children, where 0 means there is no child; node 0 is the root
 	*/
-	public NonLetterTranslator(String text){
-		this.text = text;
-	}
+	private static final int[] PAS_TRIE;
 	
-	/**
-	* Calls the correct translation method, toAlpha(..) or toNonLetter(..) and contains all the PAS
-	* and OC information, which is passed on to both methods
-	*
-	*@param input The text to translate
-	*@return String The translated text
+	// Index into PUNCTUATION_MARKS of the PAS that ends at each trie node; -1 if no PAS ends there
+	private static final int[] PAS_TRIE_MARKS;
+	
+	// Index of the line separator in PUNCTUATION_MARKS, the only mark that can be longer than one character
+	private static final int LINE_SEPARATOR_INDEX;
+	
+	// Index into PUNCTUATION_MARKS of each single-character mark, looked up by the character; -1 if the
+	// character isn't a recognized mark. When a character is listed twice, the first listing is used
+	private static final int[] MARK_INDEXES;
+	
+	// OC letters in each PAS of UPPER_PUNCTUATION, one bit per letter of OC_LETTERS
+	private static final List<int[]> PAS_OC_MASKS;
+	
+	/* Every OC of OPENERS_CLOSERS (and of TEXT_OCS) that doesn't use any OC letter in a mask, indexed by the
+		mask, so that an OC that can sandwich a PAS is picked with one random index
 	*/
-	public static String translate(String input){
+	private static final String[][] OC_CHOICES;
+	private static final String[][] TEXT_OC_CHOICES;
+	
+	static{
 		/* TO ADD TO LIST OF READABLE CHARACTERS: ***********************************************************
 			
-			1) In the array called punctuationMarks below, insert the correct unicode for the character or
+			1) In the array called PUNCTUATION_MARKS above, insert the correct unicode for the character or
 				the correct string literal. Be aware that string literals have to be compatible with regex
 				defined characters.
 			2) At the end of all of the NonLetterTranslation Arrays, create a new array, named by whatever
 				character you are adding to the list of readable characters. Within the array, add a series of
 				strings that will represent your punctuation. Be sure and check that these strings don't exist
 				in any of the other NonLetterTranslation Arrays by using ctrl + F (find).
-			3) Add NonLetterTranslation Array to punctuation ArrayList<String[]>
+			3) Add NonLetterTranslation Array to punctuation ArrayList<String[]>, which becomes PUNCTUATION
 			
 		*/
 	
-		// Holds all of the nonletter translation arrays
 		ArrayList<String[]> punctuation = new ArrayList<String[]>();
 		
-		// Allows for easier oc calculations and handling
-		String[] ocLetters = {"J", "V", "Q", "X", "Z"};
-		
-		// Opening and closing strings for text containing OC letters -- Using a 2D array in order to be able to
-		// use the getOC function
-		String[][] textOCS = {{"JJ"}, {"VV"}, {"QQ"}, {"XX"}, {"ZZ"}};
-		
-		// Opening and closing strings that are used to recognize translated punctuation when converting back
-		// to the original nonletter format
-		String[][] openersClosers = {{"JV", "JQ", "JX", "JZ"}, {"VJ", "VQ", "VX", "VZ"}, {"QJ", "QV", "QX", "QZ"},
-											{"XJ", "XV", "XQ", "XZ"}, {"ZJ", "ZV", "ZQ", "ZX"}};
-		
-		// All punctuation that is checked to be translated
-		// Still need to handle carriage returns
-		String cr = System.getProperty("line.separator");
-		String[] punctuationMarks = {" ", "!", "?", ".", ",", "1", "2", "3", "4", "5", "6", "7", "8", "9", "0", "\"",
-											  "<", ">", "/", "'", ":", ";", "[", "]", "{", "}", "|", "\\", "`", "~", "@", "#",
-											  "$", "%", "^", "&", "*", "(", ")", "-", "_", "+", "=", "\t", "\u201C",
-											  "\u201D", "\u2018", "\u2019", "\u2026", "\u003A", "\u2013", "\u0085", cr,
-											  "\u0009"};
-		
 		//************** NonLetter Translation Arrays ***************************************************************
 		String[] space = {"spc", "ssp", "sp", "ss", "ssc", "sc", "zpc", "zsp", "zp", "zs", "zsc", "zc"};
 		punctuation.add(space);
@@ -326,12 +344,177 @@ public class NonLetterTranslator{
 		punctuation.add(characterTabulation);
 		//************************************************************************************************************
 		
+		// A dictionary named by the awd.dictionary system property replaces the PAS of the marks it has
+		AWDDictionary dictionary = AWDDictionary.getShared();
+		if(dictionary != null){
+			for(int m = 0; m < PUNCTUATION_MARKS.length; m++){
+				String[] aliases = dictionary.getAliases(PUNCTUATION_MARKS[m]);
+				if(aliases != null)
+					punctuation.set(m, aliases);
+			}
+		}
+		
+		PUNCTUATION = Collections.unmodifiableList(punctuation);
+		
+		ArrayList<String[]> upperPunctuation = new ArrayList<String[]>();
+		for(String[] pasArray : punctuation){
+			String[] upperArray = new String[pasArray.length];
+			for(int i = 0; i < pasArray.length; i++)
+				upperArray[i] = pasArray[i].toUpperCase();
+			upperPunctuation.add(upperArray);
+		}
+		UPPER_PUNCTUATION = Collections.unmodifiableList(upperPunctuation);
+		
+		ArrayList<int[]> pasOCMasks = new ArrayList<int[]>();
+		for(String[] pasArray : upperPunctuation){
+			int[] masks = new int[pasArray.length];
+			for(int i = 0; i < pasArray.length; i++)
+				masks[i] = getOCMask(pasArray[i]);
+			pasOCMasks.add(masks);
+		}
+		PAS_OC_MASKS = Collections.unmodifiableList(pasOCMasks);
+		
+		OC_CHOICES = getOCChoices(OPENERS_CLOSERS);
+		TEXT_OC_CHOICES = getOCChoices(TEXT_OCS);
+		
+		int maxNodes = 1;
+		for(String[] pasArray : upperPunctuation)
+			for(String pas : pasArray)
+				maxNodes += pas.length();
+		
+		int[] trie = new int[maxNodes * AWD.ALPHABET_SIZE];
+		int[] trieMarks = new int[maxNodes];
+		Arrays.fill(trieMarks, -1);
+		int nodeCount = 1;
+		
+		for(int m = 0; m < upperPunctuation.size(); m++){
+			for(String pas : upperPunctuation.get(m)){
+				int node = 0;
+				for(int i = 0; i < pas.length(); i++){
+					int slot = node * AWD.ALPHABET_SIZE + (pas.charAt(i) - 'A');
+					if(trie[slot] == 0)
+						trie[slot] = nodeCount++;
+					node = trie[slot];
+				}
+				trieMarks[node] = m;
+			}
+		}
+		
+		PAS_TRIE = Arrays.copyOf(trie, nodeCount * AWD.ALPHABET_SIZE);
+		PAS_TRIE_MARKS = Arrays.copyOf(trieMarks, nodeCount);
+		
+		LINE_SEPARATOR_INDEX = Arrays.asList(PUNCTUATION_MARKS).lastIndexOf(System.getProperty("line.separator"));
+		
+		int largestMark = 0;
+		for(String mark : PUNCTUATION_MARKS)
+			if(mark.length() == 1)
+				largestMark = Math.max(largestMark, mark.charAt(0));
+		
+		MARK_INDEXES = new int[largestMark + 1];
+		Arrays.fill(MARK_INDEXES, -1);
+		for(int m = PUNCTUATION_MARKS.length - 1; m >= 0; m--)
+			if(PUNCTUATION_MARKS[m].length() == 1)
+				MARK_INDEXES[PUNCTUATION_MARKS[m].charAt(0)] = m;
+	}
+	
+	private static final String OC_CHARS = String.join("", OC_LETTERS);	// The OC letters as one String
+	
+	private static final int NO_PAS = -1;		// Returned by getPASEnd(..) when no PAS is closed
+	private static final int MORE_TEXT = -2;	// Returned by getPASEnd(..) when the PAS may go on past the text
+	
+	// Reason given when alpha text stops at a sequence that can't be translated back
+	public static final String UNRECOGNIZED_PAS = "Unrecognized punctuation sequence read. Terminating script.";
+	
+	public String text;
+	
+	/**
+	* Runs test functions
+	*
+	*@param args Command line arguments (not used)
+	*/
+	public static void main(String[] args){
+		tests();
+	}
+	
+	/**
+	* Returns every punctuation mark that is translated, in the order of their PAS
+	*
+	*@return String[] A copy of PUNCTUATION_MARKS
+	*/
+	static String[] getPunctuationMarks(){
+		return PUNCTUATION_MARKS.clone();
+	}
+	
+	/**
+	* Returns the PAS of a punctuation mark
+	*
+	*@param markIndex The index of the mark in getPunctuationMarks()
+	*@return String[] A copy of the mark's PAS
+	*/
+	static String[] getAliases(int markIndex){
+		return PUNCTUATION.get(markIndex).clone();
+	}
+	
+	/**
+	* Tests functionality of NonLetterTranslator, specifically it's two main functions,
+	* toAlpha(..) and toNonLetter(..)
+	*
+	*/
+	private static void tests(){
+		Scanner scan = new Scanner(System.in);
+	
+		System.out.println("What would you like to translate?");
+		String text = "";
+		text += scan.nextLine();
+		
+		String result = translate(text);
+		
+		System.out.println("Translation: " + result);
+		
+	}
+	
+	/**
+	* Create a new NonLetterTranslator
+	*
+	*/
+	public NonLetterTranslator(){}
+	
+	/**
+	* Create a new NonLetterTranslator and set the text of the NLT
+	*
+	*@param text The text to be translated (presumably)
+	*/
+	public NonLetterTranslator(String text){
+		this.text = text;
+	}
+	
+	/**
+	* Calls the correct translation method, toAlpha(..) or toNonLetter(..) and contains all the PAS
+	* and OC information, which is passed on to both methods. PAS and OCs are picked with the calling
+	* thread's generator (see AWDRandom)
+	*
+	*@param input The text to translate
+	*@return String The translated text
+	*/
+	public static String translate(String input){
+		return translate(input, AWDRandom.current());
+	}
+	
+	/**
+	* Same as translate(..) above, picking PAS and OCs with the given generator, so that the same generator
+	* state always gives the same translation
+	*
+	*@param input The text to translate
+	*@param random The generator used to pick PAS and OCs
+	*@return String The translated text
+	*/
+	public static String translate(String input, RandomGenerator random){
 		String result = "";
 
-		if(!isDone(input) || !containsOC(input, ocLetters))
-			result = toAlpha(input, punctuation, ocLetters, openersClosers, punctuationMarks, textOCS);
+		if(!isDone(input) || !containsOC(input, OC_LETTERS))
+			result = toAlpha(input, random);
 		else
-			result = toNonLetter(input, punctuation, ocLetters, openersClosers, punctuationMarks, textOCS);
+			result = toNonLetter(input);
 		
 		return result;
 	}
@@ -348,136 +531,137 @@ public class NonLetterTranslator{
 	* be distinguished from the text values.
 	*
 	*@param input The text to be translated
+	*@param random The generator used to pick PAS and OCs
 	*@return String The translated text, now only containing alphabetic values (also all caps)
 	*
 	*/
-	private static String toAlpha(String input, ArrayList<String[]> punctuation, String[] ocLetters,
-											String[][] openersClosers, String[] punctuationMarks, String[][] textOCS){
-		
-		input = input.toUpperCase();
+	private static String toAlpha(String input, RandomGenerator random){
 		
 		if(input.length() == 0)
 			return "";
 		
-		String inputRevised = "";
-		int k = 0;
-		// Replace text OC letters with openers and closers
-		while(k < input.length()){
-		
-			String currentLetter = Character.toString(input.charAt(k));
-			
-			// If the current character is in the ocLetters array, add OC
-			if(contains(currentLetter, ocLetters)){
-			
-				String opener = getOC(currentLetter, ocLetters, textOCS);
-				String closer = getOC(currentLetter, ocLetters, textOCS);
-				String replacement = opener + currentLetter + closer;
-				
-				inputRevised += replacement;
-			}else{
-				inputRevised += currentLetter;
-			}
-			++k;
+		StringBuilder result = new StringBuilder(input.length() * 4);
+		try{
+			toAlpha(input, result, random);
+		}catch(IOException e){
+			//StringBuilder does not throw IOException
 		}
 		
-		// Since String is immutable, this is unnecessary. Simply done for the name change
-		String result = inputRevised;
+		return result.toString();
+	}
+	
+	/**
+	* Translates text to alphabetic values in a single pass, appending the result as it goes. Each
+	* character is looked up in MARK_INDEXES, and punctuation is replaced right away by a random PAS
+	* sandwiched by OCs, while OC letters in the text are sandwiched by text OCs. Characters that are
+	* neither letters nor recognized punctuation are kept as they are.
+	*
+	*@param input The text to be translated
+	*@param out Where the translated text (all caps) is appended
+	*@param random The generator used to pick PAS and OCs
+	*@throws IOException If the translated text cannot be appended
+	*/
+	static void toAlpha(CharSequence input, Appendable out, RandomGenerator random) throws IOException{
 		
-		Random rand = new Random();		// Used to randomly take translation equivalences and oc
-		int i = 0;								// Keeps track of the punctuation arrays in the ArrayList
-		String oldText = result;			// Used to show when replaceFirst(..) can't replace any more
-
-		// Go through punctuation translation arrays replacing all punctuation with its equivalent letter sequence
-		// and setting the resulting text as you go along
-		while(i < punctuation.size()){
+		String lineSeparator = PUNCTUATION_MARKS[LINE_SEPARATOR_INDEX];
+		int length = input.length();
+		int k = 0;
+		
+		while(k < length){
+		
+			char currentChar = Character.toUpperCase(input.charAt(k));
+			int markIndex = -1;
+			int markLength = 1;
 			
-			oldText = result;
-			if(result.contains(punctuationMarks[i]))
-				oldText = "";		// Used as a reference-- once oldText.equals(result), there are no more replacements
-			while(!result.equals(oldText)){ //^^
-				oldText = result;
+			// The line separator may be more than one character long, e.g. "\r\n"
+			if(lineSeparator.length() > 1 && currentChar == lineSeparator.charAt(0) &&
+				lineSeparator.contentEquals(input.subSequence(k, Math.min(length, k + lineSeparator.length())))){
+				markIndex = LINE_SEPARATOR_INDEX;
+				markLength = lineSeparator.length();
+			}else if(currentChar < MARK_INDEXES.length){
+				markIndex = MARK_INDEXES[currentChar];
+			}
 			
-				String replacement = "";
-				// Randomly get punctuation letter sequence
-				replacement += punctuation.get(i)[rand.nextInt(punctuation.get(i).length)];
-				replacement = replacement.toUpperCase();
-				
-				String opener = getOC(replacement, ocLetters, openersClosers);
-				String closer = getOC(replacement, ocLetters, openersClosers);
+			if(markIndex >= 0){
+				// Randomly get punctuation letter sequence and sandwich it with an opener and closer
+				String[] pasArray = UPPER_PUNCTUATION.get(markIndex);
+				int pasIndex = random.nextInt(pasArray.length);
+				String replacement = pasArray[pasIndex];
+				int ocMask = PAS_OC_MASKS.get(markIndex)[pasIndex];
+				if(AWDMetrics.ENABLED)
+					AWDMetrics.recordAliasExpansion();
 				
-				// Add opener and closer String to the beginning and end of the replacement punctuation letter sequence
-				replacement = opener + replacement + closer;
-				
-				// Replace old punctuation with letter sequence equivalent and set to result
-				String fixMeta = "";
-				// Some characters are recognized regex formatting characters. Add '\\' to fix this
-				if(punctuationMarks[i].equals("?") || punctuationMarks[i].equals("$") ||
-				   punctuationMarks[i].equals("^") || punctuationMarks[i].equals("*") ||
-					punctuationMarks[i].equals(".") || punctuationMarks[i].equals("[") ||
-					punctuationMarks[i].equals("]") || punctuationMarks[i].equals("{") ||
-					punctuationMarks[i].equals("}") || punctuationMarks[i].equals("\\") ||
-					punctuationMarks[i].equals("|") || punctuationMarks[i].equals("(") ||
-					punctuationMarks[i].equals(")") || punctuationMarks[i].equals("+"))
-					fixMeta += "\\";
-				String fixedPunc = fixMeta + punctuationMarks[i];
-				result = oldText.replaceFirst(fixedPunc, replacement);
-				
-				//@@DEBUG
-				//System.out.println("result: " + result);
-				//System.out.println("oldText: " + oldText);
-				
-				// Check if the result is all alphabetic letters. If it is, exit loops to stop checking
-				if(isDone(result)){
-					oldText = result;
-					i = punctuation.size();
-				}
+				out.append(getOC(ocMask, OC_CHOICES, random));
+				out.append(replacement);
+				out.append(getOC(ocMask, OC_CHOICES, random));
+			}else if(OC_CHARS.indexOf(currentChar) >= 0){
+				// Sandwich text OC letters with text openers and closers
+				int ocMask = 1 << OC_CHARS.indexOf(currentChar);
 				
+				out.append(getOC(ocMask, TEXT_OC_CHOICES, random));
+				out.append(currentChar);
+				out.append(getOC(ocMask, TEXT_OC_CHOICES, random));
+			}else{
+				out.append(currentChar);
 			}
-			++i;
+			
+			k += markLength;
 		}
-		
-		return result;
 	}
 	
 	/**
-	* Finds a random, plausible OC that doesn't conflict with the inner PAS values.
+	* Finds a random, plausible OC that doesn't conflict with the inner PAS values. Every OC that can be
+	* picked for the OC letters of the PAS is listed ahead of time, so this is a single random index
 	*
-	*@param replacement The PAS String, used to see if it has any OC alpha values
-	*@param ocLetters Used as a reference to see which alpha letters make up the OC values
-	*@param openersClosers Contains all the possible combinations of OC
-	*@return String A two-letter string, consisting of two different OC alpha values
+	*@param ocMask The OC letters in the PAS, one bit per letter of OC_LETTERS
+	*@param ocChoices OC_CHOICES or TEXT_OC_CHOICES
+	*@param random The generator used to pick the OC
+	*@return String A two-letter string, consisting of two OC alpha values
 	*/
-	private static String getOC(String replacement, String[] ocLetters, String[][] openersClosers){
-		Random rand = new Random();
-	
-		// Keeps track of letters in the letter sequence that overlap with oc letters
-		ArrayList<String> hit = new ArrayList<String>();
-		int j = 0;
-		// Go through letter sequence in replacement text, adding overlapping letters to the hit list
-		while(j < ocLetters.length){
-			if(replacement.contains(ocLetters[j]))
-				hit.add(ocLetters[j]);
-			++j;
-		}
-		int ocLength = openersClosers.length;
-		int ocLetterArrayIndex = rand.nextInt(ocLength);	// Get random first oc letter
-		int ocLetter = rand.nextInt(ocLength - 1);					// Get random second oc letter
-		
-		// For textOCS array, use ocLetter = 0 since each array has only one String in it
-		if(openersClosers[0].length == 1)
-			ocLetter = 0;
-		
-		// If the letter sequence contains all the oc letters (which should be impossible), skip oc check
-		if(hit.size() != ocLength){
-			while(hit.contains(ocLetters[ocLetterArrayIndex]))
-				ocLetterArrayIndex = rand.nextInt(ocLength);	// Get new random first letter
-			while(hit.contains(Character.toString(openersClosers[ocLetterArrayIndex][ocLetter].charAt(1))))
-				ocLetter = rand.nextInt(ocLength - 1);				// Get new random second letter
+	private static String getOC(int ocMask, String[][] ocChoices, RandomGenerator random){
+		String[] choices = ocChoices[ocMask];
+		return choices[random.nextInt(choices.length)];
+	}
+	
+	/**
+	* Finds which OC letters are in the text
+	*
+	*@param text The text, in caps
+	*@return int One bit for each letter of OC_LETTERS in the text
+	*/
+	private static int getOCMask(String text){
+		int mask = 0;
+		for(int i = 0; i < OC_LETTERS.length; i++)
+			if(text.contains(OC_LETTERS[i]))
+				mask |= 1 << i;
+		return mask;
+	}
+	
+	/**
+	* Lists, for every set of OC letters, the OCs that use none of them. Picking uniformly from such a
+	* list is the same as picking a first letter and then a second letter that aren't in the set. If every
+	* OC uses one of the letters, which no PAS comes close to, any OC can be picked
+	*
+	*@param openersClosers OPENERS_CLOSERS or TEXT_OCS
+	*@return String[][] The OCs that can be picked, indexed by the mask of OC letters to avoid
+	*/
+	private static String[][] getOCChoices(String[][] openersClosers){
+		String[][] choices = new String[1 << OC_LETTERS.length][];
+		
+		for(int mask = 0; mask < choices.length; mask++){
+			ArrayList<String> valid = new ArrayList<String>();
+			ArrayList<String> all = new ArrayList<String>();
+			for(String[] ocs : openersClosers){
+				for(String oc : ocs){
+					all.add(oc);
+					if((getOCMask(oc) & mask) == 0)
+						valid.add(oc);
+				}
+			}
+			choices[mask] = (valid.isEmpty() ? all : valid).toArray(new String[0]);
 		}
 		
-		// Get oc String
-		String oc = openersClosers[ocLetterArrayIndex][ocLetter];
-		return oc;
+		return choices;
 	}
 	
 	/**
@@ -537,125 +721,178 @@ public class NonLetterTranslator{
 	/**
 	* Translates an alpha-based text sequence back to a nonLetter punctuation format.
 	* In order to do this, this method goes through the text stopping at OCs and assessing how to
-	* correctly get the embedded text between OC values.
+	* correctly get the embedded text between OC values. If a PAS can't be recognized, the reason is printed
+	* and only the text before it is translated.
 	*
 	*@param input The text to be translated
-	*@param punctuation Holds all of the punctuation array String sets
-	*@param ocLetters Holds which characters are OC characters
-	*@param openersClosers Holds all of the valid OC Strings
-	*@param punctuationMarks Holds the info on all of the recognized non-letter characters
-	*@param textOCS Holds all the valid text OC strings
 	*@return String The translated text, which now contains non-letter characters and no OC pairs
 	*/
-	private static String toNonLetter(String input, ArrayList<String[]> punctuation, String[] ocLetters,
-												 String[][] openersClosers, String[] punctuationMarks, String[][] textOCS){
+	private static String toNonLetter(String input){
 		
-		String original = input;
-		int i = 0;
-		String result = "";
+		if(input.length() == 0)
+			return "";
 		
-		if(original.length() == 0)
-			return result;
+		StringBuilder result = new StringBuilder(input.length());
+		try{
+			if(!toNonLetter(input, result))
+				System.out.println(UNRECOGNIZED_PAS);
+		}catch(IOException e){
+			//StringBuilder does not throw IOException
+		}
 		
-		//@@DEBUG
-		//System.out.println("Input: " + input);
+		return result.toString();
+	}
+	
+	/**
+	* Translates alpha text back to nonletter text in a single forward pass, appending the result as it goes.
+	*
+	* Letters outside of OCs are kept as they are. When a text OC is found, e.g. "QQJZZ", the letter inside it
+	* is kept. When a PAS OC is found, the PAS letters are walked through PAS_TRIE, and the PAS ends at the
+	* longest match followed by a closing OC pair (see getPASEnd(..)); the punctuation mark of that trie node
+	* is added. Translation stops at a PAS that isn't recognized, or at an OC or PAS cut off by the end of the
+	* text, rather than dropping it and reading what follows out of step.
+	*
+	*@param input The text to be translated
+	*@param out Where the translated text is appended
+	*@return boolean True if the whole text was translated, false if it stopped at a sequence it couldn't read
+	*@throws IOException If the translated text cannot be appended
+	*/
+	static boolean toNonLetter(CharSequence input, Appendable out) throws IOException{
 		
-		/* Go through text stopping at OC characters and assesing whether they belong to an PAS OC or
-		// a text OC. When text OC is found, add the index character to the result. When PAS OC is found,
-		// find the correct punctuation in the ArrayList punctuation and add it to the result.
-		// If a character is not an OC character, simply add it to the result
-		*/
-		while(i < original.length()){
+		int length = input.length();
+		int i = 0;
 		
-			// Current index character
-			String currentChar = Character.toString(original.charAt(i));
+		while(i < length){
+		
+			char currentChar = input.charAt(i);
 			
-			// If currentChar is an OC character
-			if(contains(currentChar, ocLetters)){
+			// If currentChar is not an OC character, simply add it to the result
+			if(OC_CHARS.indexOf(currentChar) < 0){
+				out.append(currentChar);
+				++i;
+				continue;
+			}
 			
-				// Character following currentChar
-				String nextChar = Character.toString(original.charAt(i + 1));
-				
-				// If currentChar is equal to nextChar, a text OC has been found
-				if(currentChar.equals(nextChar)){
-				
-					// Get text oc character
-					String thirdChar = Character.toString(original.charAt(i + 2));
-					result += thirdChar;
-					/* If the text being assessed looks like this: "...QQJZZ...", where the first 'Q'
-					// is the starting character and '...' represents more characters in the string,
-					// increasing i by 4 puts the index at the second 'Z'. At the end of the while loop
-					// i is increased 1 more to put the index past the text OC and ready to assess the next
-					// character
-					*/
-					i += 4;
-					
-				}else{ // When the OC found is a PAS OC
-					
-					//String oc = currentChar + nextChar; //@@ Not needed, I guess
-					
-					int startIndex = i + 2; // Find index of first char in PAS
-					// Find index of first char in next valid OC pair
-					int endIndex = getClosestOCCharIndex(original, startIndex, ocLetters);
-					
-					//@@DEBUG
-					if(endIndex < 0 || startIndex < 0)
-						System.out.println("Original: " + original + ", Line length: " + original.length());
-					
-					// Find PAS using substring and indices just found
-					String PAS = original.substring(startIndex, endIndex);
-					PAS = PAS.toLowerCase();
-					
-					// Find index of array where PAS is contained and use the index to get the right punctuation
-					// in punctuationMark array and add it to the result
-					for(int m = 0; m < punctuation.size(); m++)
-						if(contains(PAS, punctuation.get(m)))
-							result += punctuationMarks[m];
-					
-					// Set i to be equal to second letter of closing OC pair
-					// Note that i is incremented at the end of loop so that i is then pointing to the next character
-					// in the text
-					i = startIndex + PAS.length() + 1;
-					
-				}
-			}else{
-				result += currentChar;
+			if(i + 1 >= length)
+				return false;
+			
+			// If currentChar is equal to the next character, a text OC has been found
+			if(input.charAt(i + 1) == currentChar){
+				if(i + 5 > length)
+					return false;
+				out.append(input.charAt(i + 2));
+				i += 5;	// skip past the closing text OC
+				continue;
 			}
 			
-			++i;
+			// When the OC found is a PAS OC, find the closing OC pair and follow the PAS to its trie node
+			int end = getPASEnd(input, i + 2, true);
+			if(end < 0)
+				return false;
+			
+			int node = 0;
+			for(int j = i + 2; j < end; j++)
+				node = getTrieChild(node, input.charAt(j));
+			out.append(PUNCTUATION_MARKS[PAS_TRIE_MARKS[node]]);
+			
+			i = end + 2;	// skip past the closing OC pair
 		}
 		
-		return result;
+		return true;
+	}
+	
+	/**
+	* Finds where the PAS starting at the given index ends. The PAS letters are followed through PAS_TRIE, and
+	* every trie node that ends a PAS and is followed by two OC letters is a possible end; the last one
+	* reached, the longest PAS, is taken. The first OC pair alone can't be trusted, since the letters of a PAS
+	* may themselves be OC letters, e.g. "EX" in "SJQEXJQY"
+	*
+	*@param input The alpha text
+	*@param start The index of the first letter of the PAS, just after the opening OC
+	*@param endOfText True if no more text follows the input, false if it may continue
+	*@return int The index of the closing OC pair, NO_PAS if no PAS is closed there, or MORE_TEXT if the
+	*				 end of the PAS can't be told until more text is read
+	*/
+	private static int getPASEnd(CharSequence input, int start, boolean endOfText){
+		int length = input.length();
+		int end = NO_PAS;
+		int node = 0;
+		
+		for(int j = start; node >= 0; j++){
+			if(j + 1 >= length){
+				if(!endOfText)
+					return MORE_TEXT;
+				break;
+			}
+			
+			if(PAS_TRIE_MARKS[node] >= 0 && OC_CHARS.indexOf(input.charAt(j)) >= 0 &&
+				OC_CHARS.indexOf(input.charAt(j + 1)) >= 0)
+				end = j;
+			node = getTrieChild(node, input.charAt(j));
+		}
+		
+		return end;
 	}
 	
 	/**
-	* Find the index of the first character in the closest OC pairing starting at the
-	* given index. For example, if original = "...ZSCXQ...", where startIndex is the index of 'Z'
-	* and '...' represents additional characters, this function would return (startIndex + 3), the
-	* index of 'X', since it is the first char in the OC pair 'XQ', which is a recognized pairing.
+	* Finds the PAS_TRIE node reached by following the letter from the given node
 	*
-	* If there is no OC starting at the startIndex, return -1
+	*@param node The node to start from
+	*@param letter The next letter of the PAS, in caps or lowercase
+	*@return int The child node, or -1 if no PAS continues with the letter
+	*/
+	private static int getTrieChild(int node, char letter){
+		letter = Character.toUpperCase(letter);
+		if(letter < 'A' || letter > 'Z')
+			return -1;
+		
+		int child = PAS_TRIE[node * AWD.ALPHABET_SIZE + (letter - 'A')];
+		if(child == 0)
+			return -1;
+		return child;
+	}
+	
+	/**
+	* Finds how many characters of the alpha text, starting at the given index, make up whole letters,
+	* text OCs and OC-wrapped PAS, so that they can be translated back on their own. Stops counting once at
+	* least limit characters are covered, or when the text ends partway through an OC or PAS. A PAS that can't
+	* be recognized ends the count at the end of the text, since toNonLetter(..) stops there anyway.
+	*
+	* For example, if original = "AB" + "QVDOTZX" + "ZS", this function would return 9 with startIndex = 0,
+	* since the last 'ZS' might be the start of a PAS that continues in text that hasn't been read yet
 	*
-	*@param original The text to search, starting at startIndex
+	*@param original The alpha text to check, starting at startIndex
 	*@param startIndex The index of the text to start from
-	*@param ocLetters The recognized OC characters to use as reference
-	*@return int The index of the first character in the closest recognized OC pairing
+	*@param limit The number of characters after which to stop counting
+	*@return int The number of characters that can be translated on their own
 	*/
-	private static int getClosestOCCharIndex(String original, int startIndex, String[] ocLetters){
+	static int getCompleteLength(CharSequence original, int startIndex, int limit){
 		int i = startIndex;
-		int index = -1;	// If index is never changed, returns -1 indicating that no OC was found
-		while(i < original.length()){
-			String currentChar = Character.toString(original.charAt(i));
-			if(contains(currentChar, ocLetters)){ // If current character is an OC character
-				String nextChar = Character.toString(original.charAt(i + 1));
-				if(contains(nextChar, ocLetters)){ // If char after currentChar is an OC char
-					index = i; 					// Save index
-					i = original.length();	// End loop
-				}
+		int length = original.length();
+		while(i < length && i - startIndex < limit){
+			char currentChar = original.charAt(i);
+			if(OC_CHARS.indexOf(currentChar) < 0){	// Letter outside of any OC
+				++i;
+				continue;
+			}
+			
+			if(i + 1 >= length)
+				break;
+			
+			if(original.charAt(i + 1) == currentChar){	// Text OC, e.g. "QQJZZ"
+				if(i + 5 > length)
+					break;
+				i += 5;
+			}else{													// PAS OC, find the closing OC pair
+				int end = getPASEnd(original, i + 2, false);
+				if(end == MORE_TEXT)
+					break;
+				if(end == NO_PAS)
+					return length - startIndex;	// toNonLetter(..) stops at it, so no more of the text is held back
+				i = end + 2;
 			}
-			++i;
 		}
-		return index;
+		return i - startIndex;
 	}
 	
 }
\ No newline at end of file
@@ -0,0 +1,434 @@
+/**
+* Pipeline.java (AWD 1.0) by Peter Olson
+*
+* Puts text through several Transforms one after another, a chunk at a time, without building the
+* text in between as a String. Transforms are looked up by name among those found with ServiceLoader:
+*
+*		Pipeline encoder = Pipeline.builder().add("nlt").add("awd").encoder();
+*		Pipeline decoder = Pipeline.builder().add("nlt").add("awd").decoder();
+*
+* An encoder runs the transforms in the order they were added, and a decoder runs them backwards, so the
+* same list of names works both ways. When building, each transform is asked whether it can fuse with the
+* one after it (see Transform.fuse(..)); a fused stage does the work of both in one pass. The stages that
+* are left are joined by links, which collect what one stage appends in a reused buffer and hand it to
+* the next stage LINK_SIZE characters at a time.
+*
+* A Pipeline converts one text, since its stages keep state from one chunk to the next. The Builder can be
+* kept to build another one for the next text. Can also be run on its own, converting standard input:
+*
+*		java Pipeline -encode|-decode name[,name...]
+*
+* *********** PUBLIC GLOBAL VARIABLES *********************************************
+*
+* static final int LINK_SIZE = 8192					--> Number of characters a link collects before handing
+*																	 them to the next stage
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* static void main( String[] args )					--> Converts standard input to standard output through the
+*																	 transforms named by the arguments
+*
+* static Builder builder()								--> Creates a builder for a new pipeline
+*
+* static Pipeline of( Transform.Stage... stages )
+*																--> Joins stages that were already made into a pipeline
+*
+* static Collection<Transform> getTransforms()		--> Returns every transform that can be added by name
+*
+* static Transform getTransform( String name )		--> Returns the transform with the name, or null
+*
+* boolean process( CharSequence chunk, Appendable out )
+*																--> Puts a chunk of the text through every stage
+*
+* boolean finish( Appendable out )					--> Puts what the stages held back through the rest
+*
+* String convert( CharSequence text )				--> Puts the whole text through the pipeline
+*
+* int getStageCount()									--> Returns the number of stages after fusing
+*
+* *********** PRIVATE METHODS *****************************************************
+*
+* static Map<String, Transform> loadTransforms()	--> Finds the transforms with ServiceLoader; used by
+*																	 getTransforms() and getTransform(..)
+*
+* *********** NESTED TYPES ********************************************************
+*
+* class Builder											--> Collects the transforms and builds encoders and decoders
+*
+* class Link												--> Hands what one stage appends to the next stage
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.random.RandomGenerator;
+
+public class Pipeline implements Transform.Stage{
+
+	public static final int LINK_SIZE = 8192;	// Characters collected before they are handed to the next stage
+
+	private static final String USAGE = "Usage: java Pipeline -encode|-decode name[,name...]";
+
+	private final Transform.Stage[] stages;
+	private final Link[] links;	// links[i] hands what stages[i] appends to stages[i + 1]
+
+	/**
+	* Holder of the transforms found with ServiceLoader, loaded the first time they are asked for
+	*
+	*/
+	private static class Registry{
+		static final Map<String, Transform> TRANSFORMS = loadTransforms();
+	}
+
+	/**
+	* Joins the stages with links
+	*
+	*@param stages The stages, in the order the text goes through them
+	*/
+	private Pipeline(List<Transform.Stage> stages){
+		this.stages = stages.toArray(new Transform.Stage[0]);
+		links = new Link[this.stages.length - 1];
+		for(int i = links.length - 1; i >= 0; i--)
+			links[i] = new Link(this.stages[i + 1], i + 1 < links.length ? links[i + 1] : null);
+	}
+
+	/**
+	* Converts standard input to standard output through the transforms named by the arguments
+	*
+	*@param args -encode or -decode, then the names of the transforms separated by commas
+	*@throws IOException If standard input cannot be read
+	*/
+	public static void main(String[] args) throws IOException{
+		if(args.length != 2 || !(args[0].equals("-encode") || args[0].equals("-decode"))){
+			System.out.println(USAGE);
+			System.out.println("Transforms: " + Registry.TRANSFORMS.keySet());
+			return;
+		}
+
+		Builder builder = builder();
+		try{
+			for(String name : args[1].split(","))
+				builder.add(name.trim());
+		}catch(IllegalArgumentException e){
+			System.out.println(e.getMessage());
+			return;
+		}
+		Pipeline pipeline = args[0].equals("-encode") ? builder.encoder() : builder.decoder();
+
+		Reader in = new InputStreamReader(System.in, StandardCharsets.UTF_8);
+		Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+		char[] buffer = new char[AWDStream.CHUNK_SIZE];
+		boolean converted = true;
+
+		int read;
+		while(converted && (read = in.read(buffer)) != -1)
+			converted = pipeline.process(CharBuffer.wrap(buffer, 0, read), out);
+		if(converted)
+			converted = pipeline.finish(out);
+		out.flush();
+
+		if(!converted)
+			System.exit(1);
+	}
+
+	/**
+	* Creates a builder for a new pipeline
+	*
+	*@return Builder The builder, with no transforms added
+	*/
+	public static Builder builder(){
+		return new Builder();
+	}
+
+	/**
+	* Joins stages that were already made into a pipeline, e.g. ones converting with codecs that are kept
+	* for more than one text. No stages are fused
+	*
+	*@param stages The stages, in the order the text goes through them
+	*@return Pipeline The pipeline
+	*@throws IllegalArgumentException If no stages are given
+	*/
+	public static Pipeline of(Transform.Stage... stages){
+		if(stages.length == 0)
+			throw new IllegalArgumentException("No stages were given");
+		return new Pipeline(List.of(stages));
+	}
+
+	/**
+	* Returns every transform that can be added to a pipeline by name
+	*
+	*@return Collection<Transform> The transforms, which can't be changed
+	*/
+	public static Collection<Transform> getTransforms(){
+		return Collections.unmodifiableCollection(Registry.TRANSFORMS.values());
+	}
+
+	/**
+	* Returns the transform with the name
+	*
+	*@param name The name of the transform, in any case
+	*@return Transform The transform, or null if none has the name
+	*/
+	public static Transform getTransform(String name){
+		return Registry.TRANSFORMS.get(name.toLowerCase());
+	}
+
+	/**
+	* Finds the transforms listed in META-INF/services/Transform on the class path. The transforms that come
+	* with AWD are added if they weren't found, e.g. when the classes were compiled to another directory
+	*
+	*@return Map<String, Transform> The transforms by name
+	*/
+	private static Map<String, Transform> loadTransforms(){
+		Map<String, Transform> transforms = new LinkedHashMap<>();
+		for(Transform transform : ServiceLoader.load(Transform.class))
+			transforms.putIfAbsent(transform.getName().toLowerCase(), transform);
+
+		for(Transform transform : new Transform[]{ new NltTransform(), new AwdTransform(), new IslandTransform() })
+			transforms.putIfAbsent(transform.getName(), transform);
+		return transforms;
+	}
+
+	/**
+	* Puts a chunk of the text through every stage. Each link hands what it collected to the next stage
+	* once the stage before it is done with the chunk, so the characters come out in order
+	*
+	*@param chunk The characters to convert, which are not kept
+	*@param out Where the converted characters are appended
+	*@return boolean True if every stage converted what it was given, false if the conversion has to stop
+	*@throws IOException If the converted characters cannot be appended
+	*/
+	public boolean process(CharSequence chunk, Appendable out) throws IOException{
+		if(links.length == 0)
+			return stages[0].process(chunk, out);
+
+		links[links.length - 1].out = out;
+		boolean converted = stages[0].process(chunk, links[0]);
+		for(Link link : links)
+			converted &= link.flush();
+		return converted;
+	}
+
+	/**
+	* Finishes each stage in turn, handing what it held back to the stages after it
+	*
+	*@param out Where the converted characters are appended
+	*@return boolean True if every stage finished, false otherwise
+	*@throws IOException If the converted characters cannot be appended
+	*/
+	public boolean finish(Appendable out) throws IOException{
+		if(links.length != 0)
+			links[links.length - 1].out = out;
+
+		boolean converted = true;
+		for(int i = 0; i < stages.length; i++){
+			if(i < links.length){
+				converted &= stages[i].finish(links[i]);
+				for(int j = i; j < links.length; j++)
+					converted &= links[j].flush();
+			}else{
+				converted &= stages[i].finish(out);
+			}
+		}
+		return converted;
+	}
+
+	/**
+	* Puts the whole text through the pipeline
+	*
+	*@param text The text to convert
+	*@return String The converted text, up to where the conversion stopped if it had to
+	*/
+	public String convert(CharSequence text){
+		StringBuilder result = new StringBuilder(text.length() * 2);
+		try{
+			if(process(text, result))
+				finish(result);
+		}catch(IOException e){
+			//StringBuilder does not throw IOException
+		}
+		return result.toString();
+	}
+
+	/**
+	* Returns the number of stages the text goes through, which is less than the number of transforms when
+	* some of them were fused
+	*
+	*@return int The number of stages
+	*/
+	public int getStageCount(){
+		return stages.length;
+	}
+
+	/**
+	* Builder Public Class
+	*
+	* Collects the transforms of a pipeline and builds encoders and decoders from them
+	*
+	*/
+	public static class Builder{
+
+		private final List<Transform> transforms = new ArrayList<>();
+		private RandomGenerator random;
+
+		/**
+		* Adds the transform with the name
+		*
+		*@param name The name of a transform found with ServiceLoader
+		*@return Builder This builder
+		*@throws IllegalArgumentException If no transform has the name
+		*/
+		public Builder add(String name){
+			Transform transform = getTransform(name);
+			if(transform == null)
+				throw new IllegalArgumentException("Unknown transform " + name + ", expected one of " +
+															  Registry.TRANSFORMS.keySet());
+			return add(transform);
+		}
+
+		/**
+		* Adds the transform
+		*
+		*@param transform The transform
+		*@return Builder This builder
+		*/
+		public Builder add(Transform transform){
+			transforms.add(transform);
+			return this;
+		}
+
+		/**
+		* Sets the generator the stages make their random choices with. When none is set, each pipeline
+		* gets a new one from AWDRandom, which is seeded when awd.seed is set
+		*
+		*@param random The generator, only used by the thread the pipeline runs on
+		*@return Builder This builder
+		*/
+		public Builder random(RandomGenerator random){
+			this.random = random;
+			return this;
+		}
+
+		/**
+		* Builds a pipeline running the transforms in the order they were added
+		*
+		*@return Pipeline The encoder
+		*@throws IllegalStateException If no transforms were added
+		*/
+		public Pipeline encoder(){
+			return build(true);
+		}
+
+		/**
+		* Builds a pipeline running the transforms backwards, undoing what the encoder does
+		*
+		*@return Pipeline The decoder
+		*@throws IllegalStateException If no transforms were added
+		*/
+		public Pipeline decoder(){
+			return build(false);
+		}
+
+		/**
+		* Creates the stages, fusing each transform with the one after it when it can
+		*
+		*@param encode True to build an encoder, false to build a decoder
+		*@return Pipeline The pipeline
+		*/
+		private Pipeline build(boolean encode){
+			if(transforms.isEmpty())
+				throw new IllegalStateException("No transforms were added");
+
+			List<Transform> order = new ArrayList<>(transforms);
+			if(!encode)
+				Collections.reverse(order);
+			RandomGenerator generator = random != null ? random : AWDRandom.newGenerator();
+
+			List<Transform.Stage> stages = new ArrayList<>();
+			int i = 0;
+			while(i < order.size()){
+				Transform.Stage fused = i + 1 < order.size() ? order.get(i).fuse(order.get(i + 1), encode, generator) : null;
+				if(fused != null){
+					stages.add(fused);
+					i += 2;
+				}else{
+					stages.add(order.get(i).newStage(encode, generator));
+					++i;
+				}
+			}
+			return new Pipeline(stages);
+		}
+	}
+
+	/**
+	* Link Private Class
+	*
+	* Collects what one stage appends, and hands it to the next stage once LINK_SIZE characters are
+	* collected or the stage before is done with its chunk. Once the next stage stops, whatever else is
+	* appended is dropped
+	*
+	*/
+	private static class Link implements Appendable{
+
+		private final StringBuilder buffer = new StringBuilder(LINK_SIZE + 16);
+		private final Transform.Stage next;
+		private Appendable out;		// Where the next stage appends to, the next link or the pipeline's output
+		private boolean stopped;
+
+		public Link(Transform.Stage next, Link nextLink){
+			this.next = next;
+			out = nextLink;
+		}
+
+		public Appendable append(char c) throws IOException{
+			buffer.append(c);
+			if(buffer.length() >= LINK_SIZE)
+				flush();
+			return this;
+		}
+
+		public Appendable append(CharSequence csq) throws IOException{
+			buffer.append(csq);
+			if(buffer.length() >= LINK_SIZE)
+				flush();
+			return this;
+		}
+
+		public Appendable append(CharSequence csq, int start, int end) throws IOException{
+			buffer.append(csq, start, end);
+			if(buffer.length() >= LINK_SIZE)
+				flush();
+			return this;
+		}
+
+		/**
+		* Hands the characters collected to the next stage
+		*
+		*@return boolean True if the next stage converted them, false if it has stopped
+		*@throws IOException If the converted characters cannot be appended
+		*/
+		public boolean flush() throws IOException{
+			if(!stopped && buffer.length() != 0)
+				stopped = !next.process(buffer, out);
+			buffer.setLength(0);
+			return !stopped;
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/**
+* Transform.java (AWD 1.0) by Peter Olson
+*
+* A step that text can be put through, in either direction: the NonLetterTranslator ("nlt"), AWD ("awd")
+* or Island ("island"). Transforms are found with ServiceLoader, so a new cipher only has to implement
+* Transform and be listed in META-INF/services/Transform to be usable in a Pipeline:
+*
+*		Pipeline encoder = Pipeline.builder().add("nlt").add("awd").encoder();
+*
+* Each conversion gets Stages of its own from newStage(..). A Stage is handed the text in chunks and
+* appends what it makes of them, keeping whatever state it needs between chunks, so no stage ever needs the
+* whole text at once. A transform that can do the work of itself and the transform after it in one pass
+* returns a fused Stage from fuse(..), and the Pipeline uses that instead of the two.
+*
+* *********** PUBLIC METHODS ******************************************************
+*
+* String getName()										--> Returns the name the transform is found by
+*
+* Stage newStage( boolean encode, RandomGenerator random )
+*																--> Creates a stage that converts one text in one direction
+*
+* Stage fuse( Transform next, boolean encode, RandomGenerator random )
+*																--> Creates one stage doing the work of this transform and
+*																	 the next, or returns null if it can't
+*
+* *********** NESTED TYPES ********************************************************
+*
+* interface Stage											--> Converts one text, a chunk at a time
+*
+* class CodecStage										--> Stage that converts with a Codec; used by AwdTransform
+*																	 and IslandTransform
+*
+*
+*
+*@author Peter Olson
+*@version 1.0
+*/
+
+import java.io.IOException;
+import java.util.random.RandomGenerator;
+
+public interface Transform{
+
+	/**
+	* Returns the name the transform is found by, in lowercase
+	*
+	*@return String The name
+	*/
+	public String getName();
+
+	/**
+	* Creates a stage that converts one text in one direction
+	*
+	*@param encode True to convert English towards the cipher, false to convert back to English
+	*@param random The generator the stage makes its random choices with, only used on its thread
+	*@return Stage The stage
+	*/
+	public Stage newStage(boolean encode, RandomGenerator random);
+
+	/**
+	* Creates one stage that does the work of this transform followed by the next one, without handing
+	* the text between them. Encoding runs the pipeline's transforms in order and decoding runs them
+	* backwards, so next is whichever transform runs after this one in the given direction
+	*
+	*@param next The transform that runs after this one
+	*@param encode True when encoding, false when decoding
+	*@param random The generator the stage makes its random choices with, only used on its thread
+	*@return Stage The fused stage, or null if the two can't be fused
+	*/
+	public default Stage fuse(Transform next, boolean encode, RandomGenerator random){
+		return null;
+	}
+
+	/**
+	* Stage Public Interface
+	*
+	* Converts one text, a chunk at a time
+	*
+	*/
+	public interface Stage{
+
+		/**
+		* Converts a chunk of the text. The chunk may be reused once this returns, so it must not be kept
+		*
+		*@param chunk The characters to convert
+		*@param out Where the converted characters are appended
+		*@return boolean True if the chunk was converted, false if the conversion has to stop
+		*@throws IOException If the converted characters cannot be appended
+		*/
+		public boolean process(CharSequence chunk, Appendable out) throws IOException;
+
+		/**
+		* Converts whatever is left over once the last chunk has been processed
+		*
+		*@param out Where the converted characters are appended
+		*@return boolean True if the conversion finished, false otherwise
+		*@throws IOException If the converted characters cannot be appended
+		*/
+		public boolean finish(Appendable out) throws IOException;
+	}
+
+	/**
+	* CodecStage Public Class
+	*
+	* Stage that encodes or decodes with a Codec, which keeps its own state between chunks
+	*
+	*/
+	public static class CodecStage implements Stage{
+
+		private final Codec codec;
+		private final boolean encode;
+
+		/**
+		* Creates a stage converting with the codec
+		*
+		*@param codec The codec, which is reset first
+		*@param encode True to encode, false to decode
+		*/
+		public CodecStage(Codec codec, boolean encode){
+			this.codec = codec;
+			this.encode = encode;
+			codec.reset();
+		}
+
+		public boolean process(CharSequence chunk, Appendable out) throws IOException{
+			return encode ? codec.encode(chunk, out) : codec.decode(chunk, out);
+		}
+
+		public boolean finish(Appendable out){
+			return true;
+		}
+	}
+}